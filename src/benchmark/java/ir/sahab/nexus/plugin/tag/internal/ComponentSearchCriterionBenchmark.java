@@ -0,0 +1,101 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import ir.sahab.nexus.plugin.tag.internal.ComponentSearchCriterion.Operator;
+import ir.sahab.nexus.plugin.tag.internal.ComponentSearchCriterion.Version;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures parsing of component criteria, versions and matching of criteria against component lists of tags, which
+ * are done for each component criterion of a search. Parsing a version encodes it into keys of all version schemes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComponentSearchCriterionBenchmark {
+
+    private Version version1;
+    private Version version2;
+
+    @Setup
+    public void setup() {
+        version1 = new Version("1.12.104_3");
+        version2 = new Version("1.12.104_12");
+    }
+
+    /**
+     * Components of a tag and a criterion which matches the last one, so all components are checked.
+     */
+    @State(Scope.Benchmark)
+    public static class Components {
+
+        @Param({"10", "100", "1000"})
+        private int componentCount;
+
+        private List<AssociatedComponent> components;
+        private ComponentSearchCriterion criterion;
+
+        @Setup
+        public void setup() {
+            Random random = new Random(0);
+            components = new ArrayList<>(componentCount);
+            for (int i = 0; i < componentCount; i++) {
+                components.add(new AssociatedComponent("maven-releases", "ir.sahab", "component" + i,
+                        random.nextInt(10) + "." + random.nextInt(20) + "." + random.nextInt(100)));
+            }
+            AssociatedComponent last = components.get(componentCount - 1);
+            criterion = ComponentSearchCriterion.parse(
+                    last.getRepository() + ':' + last.getGroup() + ':' + last.getName() + " >= 0.0.1");
+        }
+    }
+
+    @Benchmark
+    public ComponentSearchCriterion parse() {
+        return ComponentSearchCriterion.parse("maven-releases:ir.sahab:component1 >= 1.12.104");
+    }
+
+    @Benchmark
+    public ComponentSearchCriterion parseUncached() {
+        return ComponentSearchCriterion.parseUncached("maven-releases:ir.sahab:component1 >= 1.12.104");
+    }
+
+    @Benchmark
+    public Version newVersion() {
+        return new Version("1.12.104_3");
+    }
+
+    @Benchmark
+    public String mavenVersionKey() {
+        return MavenVersion.toKey("1.12.104-rc3");
+    }
+
+    @Benchmark
+    public boolean compareVersions() {
+        return version1.compare(Operator.LT, version2);
+    }
+
+    @Benchmark
+    public void matchComponents(Components components, Blackhole blackhole) {
+        for (AssociatedComponent component : components.components) {
+            blackhole.consume(components.criterion.matches(component));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import com.codahale.metrics.MetricRegistry;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures reading and writing tags through {@link TagEntityAdapter} and {@link TagComponentIndex}, against an
+ * in-memory OrientDB database populated with given number of tags.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TagEntityAdapterBenchmark {
+
+    private static final String REPOSITORY = "maven-releases";
+    private static final String GROUP = "ir.sahab";
+
+    @Param({"1000", "10000"})
+    private int tagCount;
+
+    @Param({"10", "100"})
+    private int componentCount;
+
+    private final VersionSchemes versionSchemes = new VersionSchemes(repository -> "maven2", "maven2=maven");
+    private final TagEntityAdapter entityAdapter = new TagEntityAdapter(versionSchemes);
+    private final TagComponentIndex componentIndex =
+            new TagComponentIndex(new TagMetrics(new MetricRegistry()), versionSchemes);
+    private final Random random = new Random(0);
+    private ODatabaseDocumentTx tx;
+    private List<ComponentSearchCriterion> componentCriteria;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tx = new ODatabaseDocumentTx("memory:tag-benchmark-" + UUID.randomUUID()).create();
+        entityAdapter.register(tx);
+        componentIndex.register(tx);
+        for (int i = 0; i < tagCount; i++) {
+            tx.begin();
+            ODocument document = entityAdapter.addEntity(tx, newTag("tag" + i));
+            componentIndex.add(tx, document);
+            tx.commit();
+        }
+        componentCriteria = Collections.singletonList(
+                ComponentSearchCriterion.parse(REPOSITORY + ':' + GROUP + ":component0 >= 1.5"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tx.drop();
+    }
+
+    private TagEntity newTag(String name) {
+        TagEntity tag = entityAdapter.newEntity();
+        tag.setName(name);
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("status", random.nextBoolean() ? "successful" : "failed");
+        attributes.put("project", "project" + random.nextInt(100));
+        tag.setAttributes(attributes);
+        List<AssociatedComponent> components = new ArrayList<>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            components.add(new AssociatedComponent(REPOSITORY, GROUP, "component" + i,
+                    random.nextInt(3) + "." + random.nextInt(10)));
+        }
+        tag.setComponents(components);
+        Date date = new Date();
+        tag.setFirstCreated(date);
+        tag.setLastUpdated(date);
+        return tag;
+    }
+
+    @Benchmark
+    public Object findByName() {
+        return entityAdapter.findByName(tx, "tag" + random.nextInt(tagCount)).map(TagEntity::toDto);
+    }
+
+    @Benchmark
+    public void searchByAttribute(Blackhole blackhole) {
+        Map<String, String> attributes = Collections.singletonMap("project", "project" + random.nextInt(100));
+        for (TagEntity tag : entityAdapter.search(tx, attributes)) {
+            blackhole.consume(tag.toDto());
+        }
+    }
+
+    @Benchmark
+    public void searchByComponent(Blackhole blackhole) {
+        for (TagEntity tag : entityAdapter.search(tx, TagQuery.all(), componentIndex.findTags(tx, componentCriteria))) {
+            blackhole.consume(tag.toDto());
+        }
+    }
+
+    @Benchmark
+    public void searchPage(Blackhole blackhole) {
+        ResultPage<TagEntity> page = entityAdapter.search(tx, TagQuery.all(), null, null, 100);
+        for (TagEntity tag : page.getItems()) {
+            blackhole.consume(tag.toDto());
+        }
+    }
+
+    /**
+     * Same search as {@link #searchPage(Blackhole)}, which reads only names and attributes of tags.
+     */
+    @Benchmark
+    public void searchProjectedPage(Blackhole blackhole) {
+        ResultPage<Tag> page = entityAdapter.search(tx, TagQuery.all(), null, null, 100,
+                EnumSet.of(TagField.NAME, TagField.ATTRIBUTES));
+        for (Tag tag : page.getItems()) {
+            blackhole.consume(tag);
+        }
+    }
+
+    @Benchmark
+    public void update() {
+        tx.begin();
+        TagEntity tag = entityAdapter.findByName(tx, "tag" + random.nextInt(tagCount)).get();
+        tag.getAttributes().put("status", random.nextBoolean() ? "successful" : "failed");
+        tag.setLastUpdated(new Date());
+        ODocument document = entityAdapter.editEntity(tx, tag);
+        componentIndex.update(tx, document);
+        tx.commit();
+    }
+
+    /**
+     * Same change as {@link #update()}, written as a patch which leaves components and their index untouched.
+     */
+    @Benchmark
+    public void patch() {
+        tx.begin();
+        TagEntity tag = entityAdapter.findByName(tx, "tag" + random.nextInt(tagCount)).get();
+        Map<String, String> attributes = new HashMap<>(tag.getAttributes());
+        attributes.put("status", random.nextBoolean() ? "successful" : "failed");
+        tag.setAttributes(attributes);
+        tag.setLastUpdated(new Date());
+        entityAdapter.patchEntity(tx, tag, Collections.emptySet(), Collections.emptyList());
+        tx.commit();
+    }
+}
@@ -0,0 +1,135 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import java.util.Objects;
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Represents a predicate on an attribute of tags. Values of range predicates are compared as numbers, or as versions
+ * composed of numbers separated by '.' (e.g. 1.2.10), so attributes with other values never match a range.
+ */
+public class AttributePredicate {
+
+    public enum Operator {
+        EQ(""), PREFIX("*"), EXISTS(""), GT(">"), GTE(">="), LT("<"), LTE("<=");
+
+        private final String expressionString;
+
+        Operator(String expressionString) {
+            this.expressionString = expressionString;
+        }
+
+        boolean isRange() {
+            return this == GT || this == GTE || this == LT || this == LTE;
+        }
+    }
+
+    private final String key;
+    private final Operator operator;
+    private final String value;
+    private final String valueKey;
+
+    private AttributePredicate(String key, Operator operator, String value) {
+        this.key = key;
+        this.operator = operator;
+        this.value = value;
+        this.valueKey = operator.isRange() ? ComponentSearchCriterion.Version.toKey(value) : null;
+        Validate.isTrue(!operator.isRange() || valueKey != null,
+                "Range of attribute %s should be a number or a version like 1.2.10: %s", key, value);
+    }
+
+    /**
+     * Parses a predicate on value of an attribute, in the format of attributeMatch query parameters. Expression is
+     * either a prefix followed by '*' (e.g. release/*), a range operator (&gt;, &gt;=, &lt; or &lt;=) followed by a
+     * number (e.g. &gt;=1200), or a value to match exactly. Values of attribute query parameters are always matched
+     * exactly using {@link #equalTo(String, String)}, so values like &gt;1 or a* can still be searched.
+     *
+     * @param key key of attribute
+     * @param expression expression of value
+     * @throws IllegalArgumentException if expression is invalid
+     */
+    public static AttributePredicate parse(String key, String expression) {
+        Validate.isTrue(!key.isEmpty(), "Attribute key should not be empty");
+        for (Operator operator : new Operator[] {Operator.GTE, Operator.LTE, Operator.GT, Operator.LT}) {
+            if (expression.startsWith(operator.expressionString)) {
+                String value = expression.substring(operator.expressionString.length()).trim();
+                return new AttributePredicate(key, operator, value);
+            }
+        }
+        if (expression.endsWith(Operator.PREFIX.expressionString)) {
+            return new AttributePredicate(key, Operator.PREFIX, expression.substring(0, expression.length() - 1));
+        }
+        return new AttributePredicate(key, Operator.EQ, expression);
+    }
+
+    /**
+     * @return a predicate which matches tags having an attribute with given key and exactly given value
+     */
+    public static AttributePredicate equalTo(String key, String value) {
+        Validate.isTrue(!key.isEmpty(), "Attribute key should not be empty");
+        return new AttributePredicate(key, Operator.EQ, value);
+    }
+
+    /**
+     * @return a predicate which matches tags having an attribute with given key, regardless of its value
+     */
+    public static AttributePredicate exists(String key) {
+        Validate.isTrue(!key.isEmpty(), "Attribute key should not be empty");
+        return new AttributePredicate(key, Operator.EXISTS, null);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Operator getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return value or prefix to compare with, or null for existence predicates
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return {@link ComponentSearchCriterion.Version#toKey(String) sortable key} of value of range predicates,
+     *     otherwise null
+     */
+    String getValueKey() {
+        return valueKey;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        AttributePredicate that = (AttributePredicate) o;
+        return key.equals(that.key) && operator == that.operator && Objects.equals(value, that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(key, operator, value);
+    }
+
+    /**
+     * @return expression of this predicate in the format of attribute query parameters for equality predicates,
+     *     hasAttribute query parameters for existence predicates, and attributeMatch query parameters for others
+     */
+    @Override
+    public String toString() {
+        switch (operator) {
+            case EXISTS:
+                return key;
+            case PREFIX:
+                return key + ':' + value + operator.expressionString;
+            default:
+                return key + ':' + operator.expressionString + value;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import java.util.function.Supplier;
+
+/**
+ * Registers statistics of caches as gauges in Nexus metrics.
+ */
+public final class CacheGauges {
+
+    private CacheGauges() {
+    }
+
+    /**
+     * Registers hits, misses, evictions and size of given cache, named after given owner class.
+     */
+    public static void register(MetricRegistry metricRegistry, Class<?> owner, Cache<?, ?> cache) {
+        register(metricRegistry, owner, "hits", () -> cache.stats().hitCount());
+        register(metricRegistry, owner, "misses", () -> cache.stats().missCount());
+        register(metricRegistry, owner, "evictions", () -> cache.stats().evictionCount());
+        register(metricRegistry, owner, "size", cache::size);
+    }
+
+    private static void register(MetricRegistry metricRegistry, Class<?> owner, String name, Supplier<Long> value) {
+        String fullName = MetricRegistry.name(owner, name);
+        // Gauge of a previous instance may exist if plugin is reloaded
+        metricRegistry.remove(fullName);
+        metricRegistry.register(fullName, (Gauge<Long>) value::get);
+    }
+}
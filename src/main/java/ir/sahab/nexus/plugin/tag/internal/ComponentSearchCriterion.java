@@ -1,29 +1,32 @@
 package ir.sahab.nexus.plugin.tag.internal;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
-import java.util.Arrays;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import org.apache.commons.lang3.Validate;
 
 /**
- * Represents a criterion for component search.
+ * Represents a criterion for component search. Criteria are immutable, so parsed criteria are cached by their
+ * expressions, as clients usually search for the same criteria repeatedly.
  */
 public class ComponentSearchCriterion {
 
-    private static final Pattern PATTERN = Pattern.compile("^(?<repository>\\S+):(?<group>\\S+)?:(?<name>\\S+)"
-            + "(?<versionexp>(\\s+)(?<operator>=|>=|=<|<|>)(\\s+)(?<version>\\S+))?$");
+    /** Maximum number of parsed criteria which are cached */
+    private static final int CACHE_SIZE = 10_000;
 
-    private String repository;
+    private static final Cache<String, ComponentSearchCriterion> CACHE =
+            CacheBuilder.newBuilder().maximumSize(CACHE_SIZE).build();
 
-    private String group;
+    private final String repository;
 
-    private String name;
+    private final String group;
+
+    private final String name;
 
     private final Operator versionOperator;
 
+    /** Version to compare with, or null if there is no version expression */
     private final Version version;
 
     private ComponentSearchCriterion(String repository, String group, String name, Operator versionOperator,
@@ -32,7 +35,7 @@ public class ComponentSearchCriterion {
         this.group = group;
         this.name = name;
         this.versionOperator = versionOperator;
-        this.version = new Version(versionValue);
+        this.version = versionValue == null ? null : new Version(versionValue);
     }
 
     public String getRepository() {
@@ -52,103 +55,271 @@ public class ComponentSearchCriterion {
     }
 
     public String getVersionValue() {
-        return version.value;
+        return version == null ? null : version.value;
+    }
+
+    /**
+     * @return sortable key of version value in given scheme, or null if version value is not supported by the scheme
+     */
+    String getVersionKey(VersionScheme scheme) {
+        return version == null ? null : version.getKey(scheme);
     }
 
     /**
+     * Parses a criterion in the format 'repository:group:name op version', which group and version expression are
+     * optional, e.g. repo1::n1 or repo1:g1:n1 >= 1.2. Criteria are served from cache if the same expression is
+     * already parsed.
+     *
      * @param expression expression to parse
      * @return an equivalent version criterion
      * @throws IllegalArgumentException if expression is invalid
      */
     public static ComponentSearchCriterion parse(String expression) {
-        Matcher matcher = PATTERN.matcher(expression);
-        Validate.isTrue(matcher.matches(), "Invalid component criterion: %s", expression);
-        String repository = matcher.group("repository");
-        String group = matcher.group("group");
-        String name = matcher.group("name");
-        Operator versionOperator = null;
-        String versionValue = null;
-        if (matcher.group("versionexp") != null) {
-            versionOperator = Operator.parse(matcher.group("operator"));
-            versionValue = matcher.group("version");
+        ComponentSearchCriterion criterion = CACHE.getIfPresent(expression);
+        if (criterion == null) {
+            criterion = parseUncached(expression);
+            CACHE.put(expression, criterion);
         }
-        return new ComponentSearchCriterion(repository, group, name, versionOperator, versionValue);
+        return criterion;
+    }
+
+    /**
+     * Parses a criterion by a single scan of expression, without regular expressions. Like a greedy pattern, name is
+     * separated by the last ':' which is followed by a non-empty name, and group by the last ':' before it. So
+     * repository may contain ':', while group may not.
+     */
+    @VisibleForTesting
+    static ComponentSearchCriterion parseUncached(String expression) {
+        int length = expression.length();
+        int coordinatesEnd = 0;
+        while (coordinatesEnd < length && !isWhitespace(expression.charAt(coordinatesEnd))) {
+            coordinatesEnd++;
+        }
+        int nameSeparator = expression.lastIndexOf(':', coordinatesEnd - 2);
+        int groupSeparator = nameSeparator <= 0 ? -1 : expression.lastIndexOf(':', nameSeparator - 1);
+        if (groupSeparator <= 0) {
+            throw invalid(expression);
+        }
+        String repository = expression.substring(0, groupSeparator);
+        String group = groupSeparator + 1 == nameSeparator ? null
+                : expression.substring(groupSeparator + 1, nameSeparator);
+        String name = expression.substring(nameSeparator + 1, coordinatesEnd);
+        if (coordinatesEnd == length) {
+            return new ComponentSearchCriterion(repository, group, name, null, null);
+        }
+
+        // Version expression: whitespaces, operator, whitespaces and version
+        int operatorStart = skipWhitespaces(expression, coordinatesEnd);
+        int operatorEnd = operatorStart;
+        while (operatorEnd < length && !isWhitespace(expression.charAt(operatorEnd))) {
+            operatorEnd++;
+        }
+        Operator operator = Operator.parse(expression, operatorStart, operatorEnd);
+        int versionStart = skipWhitespaces(expression, operatorEnd);
+        if (operator == null || versionStart == operatorEnd || versionStart == length) {
+            throw invalid(expression);
+        }
+        for (int i = versionStart; i < length; i++) {
+            if (isWhitespace(expression.charAt(i))) {
+                throw invalid(expression);
+            }
+        }
+        return new ComponentSearchCriterion(repository, group, name, operator, expression.substring(versionStart));
+    }
+
+    private static int skipWhitespaces(String expression, int position) {
+        while (position < expression.length() && isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Same as \\s in regular expressions.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static IllegalArgumentException invalid(String expression) {
+        return new IllegalArgumentException("Invalid component criterion: " + expression);
     }
 
     public boolean matches(AssociatedComponent component) {
-        return repository.equals(component.getRepository())
-                && Objects.equals(group, component.getGroup())
-                && name.equals(component.getName())
-                && (versionOperator == null || new Version(component.getVersion()).compare(versionOperator, version));
+        return matches(component, VersionScheme.NUMERIC);
+    }
+
+    /**
+     * @param scheme scheme of ordering versions of repository of component
+     */
+    public boolean matches(AssociatedComponent component, VersionScheme scheme) {
+        if (!repository.equals(component.getRepository()) || !Objects.equals(group, component.getGroup())
+                || !name.equals(component.getName())) {
+            return false;
+        }
+        if (versionOperator == null) {
+            return true;
+        }
+        if (versionOperator == Operator.EQ) {
+            return version.value.equals(component.getVersion());
+        }
+        return Version.compare(versionOperator, scheme.toKey(component.getVersion()), version.getKey(scheme));
+    }
+
+    /**
+     * @return expression of this criterion in the format accepted by {@link #parse(String)}
+     */
+    @Override
+    public String toString() {
+        String expression = repository + ':' + (group == null ? "" : group) + ':' + name;
+        return versionOperator == null ? expression
+                : expression + ' ' + versionOperator.expressionString + ' ' + version.value;
     }
 
     enum Operator {
-        EQ("="), GT(">"), LT("<"), GTE(">="), LTE("=<");
+        EQ("=", "="), GT(">", ">"), LT("<", "<"), GTE(">=", ">="), LTE("=<", "<=");
+
+        /** Cached result of values(), which copies the array on each call */
+        private static final Operator[] OPERATORS = values();
 
         private final String expressionString;
+        private final String queryOperator;
 
-        Operator(String expressionString) {
+        Operator(String expressionString, String queryOperator) {
             this.expressionString = expressionString;
+            this.queryOperator = queryOperator;
+        }
 
+        /**
+         * @return equivalent operator in OrientDB SQL
+         */
+        String getQueryOperator() {
+            return queryOperator;
         }
 
-        static Operator parse(String value) {
-            for (Operator operator : values()) {
-                if (operator.expressionString.equals(value)) {
+        /**
+         * @return operator which its expression is the given range of expression, or null if there is no such one
+         */
+        static Operator parse(String expression, int start, int end) {
+            for (Operator operator : OPERATORS) {
+                String operatorString = operator.expressionString;
+                if (operatorString.length() == end - start && expression.startsWith(operatorString, start)) {
                     return operator;
                 }
             }
-            throw new IllegalArgumentException("Invalid operator:" + value);
+            return null;
         }
 
     }
 
     /**
-     * Represents a component version. Currently it supports simple versions composed of multiple integers separated by
-     * '.' or '_'.
+     * Represents a component version. Version is parsed once into a sortable key of each {@link VersionScheme}, so
+     * comparing versions is a plain string comparison.
      */
     @VisibleForTesting
     static class Version {
-        private static final Pattern PATTERN = Pattern.compile("^(\\d+)([._]\\d+)*$");
+        /** Maximum number of digits of a version segment in sortable key */
+        private static final int SEGMENT_WIDTH = 10;
+        private static final char KEY_SEPARATOR = '.';
+        private static final VersionScheme[] SCHEMES = VersionScheme.values();
 
         private final String value;
-        private final int[] subversionNumbers;
+        /** Sortable keys of version indexed by ordinal of schemes */
+        private final String[] keys;
 
         public Version(String value) {
             this.value = value;
-            subversionNumbers = value != null && PATTERN.matcher(value).matches()
-                    ? Arrays.stream(value.split("[._]")).mapToInt(Integer::parseInt).toArray()
-                    : null;
+            this.keys = new String[SCHEMES.length];
+            for (VersionScheme scheme : SCHEMES) {
+                keys[scheme.ordinal()] = scheme.toKey(value);
+            }
+        }
+
+        String getKey(VersionScheme scheme) {
+            return keys[scheme.ordinal()];
+        }
+
+        /**
+         * Encodes a version of {@link VersionScheme#NUMERIC numeric scheme}, which is composed of multiple integers
+         * separated by '.' or '_', into a key which lexicographical order of keys is the same as order of versions.
+         * Each number of version is left padded with zeros to a fixed width and numbers are joined by '.'. So, when a
+         * version is prefix of another one, it's smaller.
+         *
+         * @return sortable key of version, or null if version is not supported
+         */
+        static String toKey(String value) {
+            if (value == null || value.isEmpty()) {
+                return null;
+            }
+            StringBuilder key = new StringBuilder(value.length() + SEGMENT_WIDTH * 2);
+            int segmentStart = 0;
+            for (int i = 0; i <= value.length(); i++) {
+                char c = i < value.length() ? value.charAt(i) : KEY_SEPARATOR;
+                if (c == '.' || c == '_') {
+                    if (!appendSegment(key, value, segmentStart, i)) {
+                        return null;
+                    }
+                    segmentStart = i + 1;
+                } else if (c < '0' || c > '9') {
+                    return null;
+                }
+            }
+            return key.toString();
+        }
+
+        private static boolean appendSegment(StringBuilder key, String value, int start, int end) {
+            if (start == end) {
+                return false;
+            }
+            while (start < end - 1 && value.charAt(start) == '0') {
+                start++;
+            }
+            int digits = end - start;
+            if (digits > SEGMENT_WIDTH) {
+                return false;
+            }
+            if (key.length() > 0) {
+                key.append(KEY_SEPARATOR);
+            }
+            for (int i = digits; i < SEGMENT_WIDTH; i++) {
+                key.append('0');
+            }
+            key.append(value, start, end);
+            return true;
         }
 
         boolean compare(Operator operator, Version other) {
-            if (operator != Operator.EQ && (subversionNumbers == null || other.subversionNumbers == null)) {
+            return compare(operator, other, VersionScheme.NUMERIC);
+        }
+
+        boolean compare(Operator operator, Version other, VersionScheme scheme) {
+            if (operator == Operator.EQ) {
+                return Objects.equals(value, other.value);
+            }
+            return compare(operator, getKey(scheme), other.getKey(scheme));
+        }
+
+        /**
+         * Compares sortable keys of two versions by a range operator.
+         *
+         * @return false if any of versions is not supported, i.e. its key is null
+         */
+        static boolean compare(Operator operator, String key, String otherKey) {
+            if (key == null || otherKey == null) {
                 return false;
             }
             switch(operator) {
-                case EQ:
-                    return Objects.equals(value, other.value);
                 case GT:
-                    return compareTo(other) > 0;
+                    return key.compareTo(otherKey) > 0;
                 case LT:
-                    return compareTo(other) < 0;
+                    return key.compareTo(otherKey) < 0;
                 case GTE:
-                    return compareTo(other) >= 0;
+                    return key.compareTo(otherKey) >= 0;
                 case LTE:
-                    return compareTo(other) <= 0;
+                    return key.compareTo(otherKey) <= 0;
                 default:
-                    throw new AssertionError("Unsupported comparison operator: " + this);
-            }
-        }
-
-        private int compareTo(Version other) {
-            for (int i = 0; i < Math.min(subversionNumbers.length, other.subversionNumbers.length); i++) {
-                int compare = Integer.compare(subversionNumbers[i], other.subversionNumbers[i]);
-                if (compare != 0) {
-                    return compare;
-                }
+                    throw new AssertionError("Unsupported comparison operator: " + operator);
             }
-            return Integer.compare(subversionNumbers.length, other.subversionNumbers.length);
         }
 
         @Override
@@ -156,4 +327,4 @@ public class ComponentSearchCriterion {
             return value;
         }
     }
-}
\ No newline at end of file
+}
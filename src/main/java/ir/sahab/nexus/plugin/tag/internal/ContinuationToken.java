@@ -0,0 +1,83 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Position of the last tag of a page in tag search results, which are ordered by last update time and then identity
+ * of tags. Next page starts right after this position. If identity is not present, next page starts with the first
+ * tag updated before last update time.
+ */
+public class ContinuationToken {
+
+    private static final char SEPARATOR = ':';
+
+    private final Date lastUpdated;
+    private final ORID id;
+
+    public ContinuationToken(Date lastUpdated, @Nullable ORID id) {
+        this.lastUpdated = Objects.requireNonNull(lastUpdated);
+        this.id = id;
+    }
+
+    public Date getLastUpdated() {
+        return lastUpdated;
+    }
+
+    @Nullable
+    public ORID getId() {
+        return id;
+    }
+
+    /**
+     * @return an opaque string representation of token which can be passed to clients
+     */
+    public String encode() {
+        String value = id == null ? String.valueOf(lastUpdated.getTime()) : lastUpdated.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param token string representation of token created by {@link #encode()}
+     * @return decoded token
+     * @throws IllegalArgumentException if given token is invalid
+     */
+    public static ContinuationToken decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                return new ContinuationToken(new Date(Long.parseLong(value)), null);
+            }
+            Date lastUpdated = new Date(Long.parseLong(value.substring(0, separatorIndex)));
+            return new ContinuationToken(lastUpdated, new ORecordId(value.substring(separatorIndex + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        ContinuationToken that = (ContinuationToken) o;
+        return lastUpdated.equals(that.lastUpdated) && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(lastUpdated, id);
+    }
+
+    @Override
+    public String toString() {
+        return "ContinuationToken{lastUpdated=" + lastUpdated + ", id=" + id + '}';
+    }
+}
@@ -0,0 +1,332 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Boolean expression over attribute predicates and component criteria, which filters tags by combinations that can
+ * not be expressed as a conjunction of criteria, e.g.
+ * {@code (status:successful or status:failed) and not component(repo1:g1:n1 < 2)}. Expressions are immutable and
+ * equal expressions have the same string representation, so they can be part of cache keys.
+ */
+public abstract class FilterExpression {
+
+    /**
+     * Parses a filter expression. Terms are either key:value for exact value of attributes, which value can be quoted
+     * if it contains spaces or parentheses, match(key:expression) for predicates on attributes in the format accepted
+     * by {@link AttributePredicate#parse(String, String)}, has(key) for existence of attributes, or
+     * component(criterion) for component criteria in the format accepted by
+     * {@link ComponentSearchCriterion#parse(String)}. Terms are combined using parentheses and 'not', 'and' and 'or'
+     * operators, from the highest precedence to the lowest.
+     *
+     * @throws IllegalArgumentException if expression is invalid
+     */
+    public static FilterExpression parse(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    /**
+     * @return an expression which matches tags matching all of given expressions, which should not be empty
+     */
+    public static FilterExpression and(List<FilterExpression> operands) {
+        return operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    /**
+     * @return expressions which this expression is the conjunction of, which is only itself if it's not an and
+     */
+    public List<FilterExpression> conjuncts() {
+        return Collections.singletonList(this);
+    }
+
+    /**
+     * @return string representation of this expression, as an operand of an operator with given precedence
+     */
+    abstract String toString(int outerPrecedence);
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof FilterExpression && toString().equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toString(0);
+    }
+
+    private static String join(List<FilterExpression> operands, String operator, int precedence,
+            int outerPrecedence) {
+        String joined = operands.stream()
+                .map(operand -> operand.toString(precedence))
+                .collect(Collectors.joining(' ' + operator + ' '));
+        return outerPrecedence > precedence ? '(' + joined + ')' : joined;
+    }
+
+    public static final class Or extends FilterExpression {
+        private static final int PRECEDENCE = 1;
+
+        private final List<FilterExpression> operands;
+
+        Or(List<FilterExpression> operands) {
+            this.operands = Collections.unmodifiableList(operands);
+        }
+
+        public List<FilterExpression> getOperands() {
+            return operands;
+        }
+
+        @Override
+        String toString(int outerPrecedence) {
+            return join(operands, "or", PRECEDENCE, outerPrecedence);
+        }
+    }
+
+    public static final class And extends FilterExpression {
+        private static final int PRECEDENCE = 2;
+
+        private final List<FilterExpression> operands;
+
+        And(List<FilterExpression> operands) {
+            this.operands = Collections.unmodifiableList(operands);
+        }
+
+        public List<FilterExpression> getOperands() {
+            return operands;
+        }
+
+        @Override
+        public List<FilterExpression> conjuncts() {
+            return operands;
+        }
+
+        @Override
+        String toString(int outerPrecedence) {
+            return join(operands, "and", PRECEDENCE, outerPrecedence);
+        }
+    }
+
+    public static final class Not extends FilterExpression {
+        private static final int PRECEDENCE = 3;
+
+        private final FilterExpression operand;
+
+        Not(FilterExpression operand) {
+            this.operand = operand;
+        }
+
+        public FilterExpression getOperand() {
+            return operand;
+        }
+
+        @Override
+        String toString(int outerPrecedence) {
+            return "not " + operand.toString(PRECEDENCE);
+        }
+    }
+
+    public static final class AttributeTerm extends FilterExpression {
+        private final AttributePredicate predicate;
+
+        AttributeTerm(AttributePredicate predicate) {
+            this.predicate = predicate;
+        }
+
+        public AttributePredicate getPredicate() {
+            return predicate;
+        }
+
+        @Override
+        String toString(int outerPrecedence) {
+            if (predicate.getOperator() == AttributePredicate.Operator.EXISTS) {
+                return "has(" + predicate.getKey() + ')';
+            }
+            if (predicate.getOperator() != AttributePredicate.Operator.EQ) {
+                return "match(" + predicate + ')';
+            }
+            String value = predicate.getValue();
+            if (value.isEmpty() || value.chars().anyMatch(c -> Character.isWhitespace(c) || c == '(' || c == ')'
+                    || c == '"')) {
+                value = '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+            }
+            return predicate.getKey() + ':' + value;
+        }
+    }
+
+    public static final class ComponentTerm extends FilterExpression {
+        private final ComponentSearchCriterion criterion;
+
+        ComponentTerm(ComponentSearchCriterion criterion) {
+            this.criterion = criterion;
+        }
+
+        public ComponentSearchCriterion getCriterion() {
+            return criterion;
+        }
+
+        @Override
+        String toString(int outerPrecedence) {
+            return "component(" + criterion + ')';
+        }
+    }
+
+    /**
+     * Recursive descent parser of filter expressions.
+     */
+    private static class Parser {
+        private static final String HAS_FUNCTION = "has(";
+        private static final String MATCH_FUNCTION = "match(";
+        private static final String COMPONENT_FUNCTION = "component(";
+
+        private final String expression;
+        private int position;
+
+        Parser(String expression) {
+            this.expression = expression;
+        }
+
+        FilterExpression parse() {
+            FilterExpression result = parseOr();
+            skipWhitespaces();
+            if (position < expression.length()) {
+                throw error("Unexpected '" + expression.charAt(position) + "'");
+            }
+            return result;
+        }
+
+        private FilterExpression parseOr() {
+            List<FilterExpression> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (consumeKeyword("or")) {
+                operands.add(parseAnd());
+            }
+            return operands.size() == 1 ? operands.get(0) : new Or(operands);
+        }
+
+        private FilterExpression parseAnd() {
+            List<FilterExpression> operands = new ArrayList<>();
+            operands.add(parseNot());
+            while (consumeKeyword("and")) {
+                operands.add(parseNot());
+            }
+            return and(operands);
+        }
+
+        private FilterExpression parseNot() {
+            if (consumeKeyword("not")) {
+                return new Not(parseNot());
+            }
+            skipWhitespaces();
+            if (consume("(")) {
+                FilterExpression result = parseOr();
+                skipWhitespaces();
+                if (!consume(")")) {
+                    throw error("Missing ')'");
+                }
+                return result;
+            }
+            return parseTerm();
+        }
+
+        private FilterExpression parseTerm() {
+            if (consume(HAS_FUNCTION)) {
+                return new AttributeTerm(AttributePredicate.exists(readFunctionArgument().trim()));
+            }
+            if (consume(MATCH_FUNCTION)) {
+                String argument = readFunctionArgument();
+                int separator = argument.indexOf(':');
+                if (separator < 0) {
+                    throw error("Missing ':' of match term");
+                }
+                return new AttributeTerm(AttributePredicate.parse(argument.substring(0, separator).trim(),
+                        argument.substring(separator + 1).trim()));
+            }
+            if (consume(COMPONENT_FUNCTION)) {
+                return new ComponentTerm(ComponentSearchCriterion.parse(readFunctionArgument().trim()));
+            }
+            int separator = expression.indexOf(':', position);
+            if (separator < 0) {
+                throw error("Missing ':' of attribute term");
+            }
+            String key = expression.substring(position, separator);
+            if (key.isEmpty() || key.chars().anyMatch(c -> Character.isWhitespace(c) || c == '(' || c == ')')) {
+                throw error("Invalid attribute key '" + key + "'");
+            }
+            position = separator + 1;
+            String value = position < expression.length() && expression.charAt(position) == '"' ? readQuoted()
+                    : readUnquoted();
+            return new AttributeTerm(AttributePredicate.equalTo(key, value));
+        }
+
+        private String readFunctionArgument() {
+            int end = expression.indexOf(')', position);
+            if (end < 0) {
+                throw error("Missing ')'");
+            }
+            String argument = expression.substring(position, end);
+            position = end + 1;
+            return argument;
+        }
+
+        private String readQuoted() {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (position < expression.length()) {
+                char c = expression.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c == '\\' && position < expression.length()) {
+                    c = expression.charAt(position++);
+                }
+                value.append(c);
+            }
+            throw error("Missing closing '\"'");
+        }
+
+        private String readUnquoted() {
+            int start = position;
+            while (position < expression.length() && !Character.isWhitespace(expression.charAt(position))
+                    && expression.charAt(position) != ')') {
+                position++;
+            }
+            return expression.substring(start, position);
+        }
+
+        private boolean consumeKeyword(String keyword) {
+            skipWhitespaces();
+            int end = position + keyword.length();
+            if (expression.regionMatches(true, position, keyword, 0, keyword.length())
+                    && (end == expression.length() || Character.isWhitespace(expression.charAt(end))
+                            || expression.charAt(end) == '(')) {
+                position = end;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean consume(String token) {
+            if (expression.startsWith(token, position)) {
+                position += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespaces() {
+            while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " of filter: " + expression);
+        }
+    }
+}
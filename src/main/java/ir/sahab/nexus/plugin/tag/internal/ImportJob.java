@@ -0,0 +1,139 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportChunkResult;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportJobStatus;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportJobStatus.State;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportResult;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An import job whose payload is spooled to a file. Progress is updated by the thread running the job and read by
+ * threads polling its status, so all state is accessed while holding the lock of the job. The only exception is the
+ * number of bytes read from payload, which changes on every read and is published by an atomic counter instead.
+ */
+class ImportJob {
+
+    private final String id;
+    private final Path payload;
+    private final long totalBytes;
+    private final Date submitted = new Date();
+    private final ImportResult progress = new ImportResult();
+    private final AtomicLong bytesRead = new AtomicLong();
+
+    private State state = State.QUEUED;
+    private Date started;
+    private Date finished;
+    private ImportResult result;
+    private String error;
+
+    ImportJob(String id, Path payload, long totalBytes) {
+        this.id = id;
+        this.payload = payload;
+        this.totalBytes = totalBytes;
+    }
+
+    String getId() {
+        return id;
+    }
+
+    Path getPayload() {
+        return payload;
+    }
+
+    /**
+     * @return given input stream of payload, which counts bytes read from it as progress of this job
+     */
+    InputStream countReads(InputStream input) {
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int result = super.read();
+                if (result != -1) {
+                    bytesRead.incrementAndGet();
+                }
+                return result;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int result = super.read(b, off, len);
+                if (result != -1) {
+                    bytesRead.addAndGet(result);
+                }
+                return result;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long result = super.skip(n);
+                bytesRead.addAndGet(result);
+                return result;
+            }
+
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+
+    synchronized void started() {
+        state = State.RUNNING;
+        started = new Date();
+    }
+
+    synchronized void chunkImported(ImportChunkResult chunkResult) {
+        progress.add(chunkResult);
+    }
+
+    synchronized void completed(ImportResult result) {
+        this.result = result;
+        state = State.COMPLETED;
+        finished = new Date();
+    }
+
+    synchronized void failed(String error) {
+        this.error = error;
+        state = State.FAILED;
+        finished = new Date();
+    }
+
+    synchronized boolean isFinishedBefore(Date date) {
+        return finished != null && finished.before(date);
+    }
+
+    synchronized ImportJobStatus getStatus() {
+        ImportJobStatus status = new ImportJobStatus();
+        status.setId(id);
+        status.setState(state);
+        status.setSubmitted(submitted);
+        status.setStarted(started);
+        status.setFinished(finished);
+        status.setTotalBytes(totalBytes);
+        status.setProcessed(progress.getTotal());
+        status.setCreated(progress.getCreated());
+        status.setSkipped(progress.getSkipped());
+        status.setFailed(progress.getFailed());
+        status.setError(error);
+        status.setResult(result);
+        if (started == null) {
+            return status;
+        }
+        long readBytes = state == State.COMPLETED ? totalBytes : bytesRead.get();
+        status.setReadBytes(readBytes);
+        long elapsedMillis = (finished == null ? System.currentTimeMillis() : finished.getTime()) - started.getTime();
+        if (elapsedMillis > 0) {
+            status.setThroughput(progress.getTotal() * 1000.0 / elapsedMillis);
+        }
+        // Total number of tags is not known before reading whole payload, so ETA is estimated by rate of reading it
+        if (state == State.RUNNING && readBytes > 0) {
+            status.setEtaSeconds(elapsedMillis * (totalBytes - readBytes) / readBytes / 1000);
+        }
+        return status;
+    }
+}
@@ -0,0 +1,169 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
+
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportJobStatus;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportResult;
+import ir.sahab.nexus.plugin.tag.internal.exception.ImportJobNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.stateguard.Guarded;
+import org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+/**
+ * Runs imports of tags asynchronously. Payload of each job is spooled to a temporary file, so the request submitting
+ * it can return immediately, and the job is run on a bounded executor. Finished jobs are kept for a while, so their
+ * status can be polled.
+ */
+@Named
+@ManagedLifecycle(phase = SERVICES)
+@Singleton
+public class ImportJobManager extends StateGuardLifecycleSupport {
+
+    private final TagStore tagStore;
+    private final ApplicationDirectories applicationDirectories;
+    private final int threads;
+    private final int queueSize;
+    private final long retentionMillis;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @Inject
+    public ImportJobManager(TagStore tagStore, ApplicationDirectories applicationDirectories,
+            @Named("${nexus.tag.import.jobs.threads:-1}") int threads,
+            @Named("${nexus.tag.import.jobs.queueSize:-10}") int queueSize,
+            @Named("${nexus.tag.import.jobs.retentionMinutes:-1440}") int retentionMinutes) {
+        checkArgument(threads > 0, "Number of import threads should be positive");
+        checkArgument(queueSize > 0, "Size of import queue should be positive");
+        this.tagStore = tagStore;
+        this.applicationDirectories = applicationDirectories;
+        this.threads = threads;
+        this.queueSize = queueSize;
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(retentionMinutes);
+    }
+
+    @Override
+    protected void doStart() {
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), new NexusThreadFactory("tag-import", "tag-import"));
+    }
+
+    @Override
+    protected void doStop() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Running import jobs are not terminated.");
+        }
+        for (ImportJob job : jobs.values()) {
+            deletePayload(job);
+        }
+        jobs.clear();
+    }
+
+    /**
+     * Spools given tags to a temporary file and queues a job to import them.
+     *
+     * @param tags JSON array of tags or newline delimited JSON of tags
+     * @return status of queued job
+     * @throws RejectedExecutionException if queue of jobs is full
+     */
+    @Guarded(by = STARTED)
+    public ImportJobStatus submit(InputStream tags) throws IOException {
+        removeExpiredJobs();
+        Path payload = Files.createTempFile(applicationDirectories.getTemporaryDirectory().toPath(), "tag-import-",
+                ".json");
+        long size;
+        try {
+            size = Files.copy(tags, payload, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(payload);
+            throw e;
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), payload, size);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(payload);
+            throw e;
+        }
+        log.info("Import job {} queued for {} bytes of tags.", job.getId(), size);
+        return job.getStatus();
+    }
+
+    private void run(ImportJob job) {
+        log.info("Import job {} started.", job.getId());
+        try (InputStream input = job.countReads(Files.newInputStream(job.getPayload()))) {
+            job.started();
+            ImportResult result = tagStore.importTags(TagJson.readTags(input), job::chunkImported);
+            job.completed(result);
+            log.info("Import job {} completed: {}", job.getId(), result);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Import job {} failed.", job.getId(), e);
+            job.failed(e.getMessage());
+        } finally {
+            deletePayload(job);
+        }
+    }
+
+    /**
+     * @throws ImportJobNotFoundException if there is no job with given id
+     */
+    @Guarded(by = STARTED)
+    public ImportJobStatus getStatus(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new ImportJobNotFoundException();
+        }
+        return job.getStatus();
+    }
+
+    /**
+     * @return status of all queued, running and recently finished jobs, ordered by submission time
+     */
+    @Guarded(by = STARTED)
+    public List<ImportJobStatus> list() {
+        removeExpiredJobs();
+        return jobs.values().stream()
+                .map(ImportJob::getStatus)
+                .sorted(Comparator.comparing(ImportJobStatus::getSubmitted))
+                .collect(Collectors.toList());
+    }
+
+    private void removeExpiredJobs() {
+        Date expiry = new Date(System.currentTimeMillis() - retentionMillis);
+        jobs.values().removeIf(job -> job.isFinishedBefore(expiry));
+    }
+
+    private void deletePayload(ImportJob job) {
+        try {
+            Files.deleteIfExists(job.getPayload());
+        } catch (IOException e) {
+            log.warn("Failed to delete payload of import job {}: {}", job.getId(), job.getPayload(), e);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Encodes Maven versions into {@link #toKey(String) sortable keys}. Versions are parsed the same as ComparableVersion
+ * of Maven parses them, into items separated by '.', '-' and transitions between digits and letters, e.g.
+ * 1.0-alpha-1 &lt; 1.0-beta &lt; 1.0-rc1 &lt; 1.0-SNAPSHOT &lt; 1.0 = 1.0.0 = 1.0-ga &lt; 1.0-sp &lt; 1.0.1.
+ */
+final class MavenVersion {
+
+    /** Order of well-known qualifiers, which release is the empty one. Other qualifiers are after them. */
+    private static final List<String> QUALIFIERS =
+            Arrays.asList("alpha", "beta", "milestone", "rc", "snapshot", "", "sp");
+    private static final int RELEASE_INDEX = QUALIFIERS.indexOf("");
+
+    /*
+     * Tags of items in keys. Maven compares a missing item as if it's a null item (0, release or an empty list), so
+     * tags are ordered by both type and comparison with null, and the end of a list is tagged between the ones which
+     * are less than null and the ones which are greater. A null item inside a list, like 0 in 1.0.1, is ordered by the
+     * first non-null item after it. So comparing a key with a longer one is the same as comparing missing items.
+     */
+    private static final char QUALIFIER_TAG = 'a';
+    private static final char RELEASE_BEFORE_LOWER_TAG = 'b';
+    private static final char LIST_TAG = 'c';
+    private static final char NULL_LIST_BEFORE_LOWER_TAG = 'd';
+    private static final char ZERO_BEFORE_LOWER_TAG = 'e';
+    private static final char END_TAG = 'f';
+    private static final char RELEASE_BEFORE_GREATER_TAG = 'g';
+    private static final char GREATER_QUALIFIER_TAG = 'h';
+    private static final char NULL_LIST_BEFORE_GREATER_TAG = 'i';
+    private static final char GREATER_LIST_TAG = 'j';
+    private static final char ZERO_BEFORE_GREATER_TAG = 'k';
+    private static final char NUMBER_TAG = 'l';
+    /** Terminates unknown qualifiers, so a qualifier is smaller than the ones it is prefix of */
+    private static final char QUALIFIER_END = '\u0001';
+    /** Maximum number of digits of a number, as the number of digits is encoded in a single character */
+    private static final int MAX_DIGITS = 200;
+
+    private MavenVersion() {
+    }
+
+    /**
+     * Encodes a version into a key which lexicographical order of keys is the same as the order of versions by Maven.
+     * Numbers are prefixed by their number of digits, so they are compared as numbers, and qualifiers are replaced by
+     * their order. Keys of equal versions, like 1.0 and 1-ga, are the same.
+     *
+     * <p>Maven compares a few odd versions inconsistently, which have a qualifier between '.' and another separator,
+     * e.g. 1.0-alpha-1 &lt; 1 &lt; 1.sp-2 but also 1.0-alpha-1 &gt; 1.sp-2, or a null item like 0 or ga before '-',
+     * e.g. 1-ga-SNAPSHOT &lt; 1 &lt; 1-sp but also 1-ga-SNAPSHOT &gt; 1-sp. Keys are always totally ordered, so such
+     * versions are ordered by their comparison with the shorter version.
+     *
+     * @return sortable key of version, or null if version is empty
+     */
+    static String toKey(String version) {
+        if (version == null || version.isEmpty()) {
+            return null;
+        }
+        Item items = parse(version);
+        if (items == null) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(version.length() * 2);
+        appendList(key, items);
+        return key.toString();
+    }
+
+    /**
+     * Parses a version into a list of items, the same as ComparableVersion of Maven.
+     *
+     * @return parsed items, or null if version has a number with too many digits
+     */
+    private static Item parse(String version) {
+        version = version.toLowerCase(Locale.ENGLISH);
+        Item list = Item.list();
+        Item root = list;
+        Deque<Item> stack = new ArrayDeque<>();
+        stack.push(list);
+        boolean digit = false;
+        int start = 0;
+        for (int i = 0; i < version.length(); i++) {
+            char c = version.charAt(i);
+            if (c == '.') {
+                list.items.add(i == start ? Item.ZERO : Item.parse(digit, version.substring(start, i)));
+                start = i + 1;
+            } else if (c == '-') {
+                list.items.add(i == start ? Item.ZERO : Item.parse(digit, version.substring(start, i)));
+                start = i + 1;
+                list = addList(list, stack);
+            } else if (Character.isDigit(c)) {
+                if (!digit && i > start) {
+                    if (!list.items.isEmpty()) {
+                        list = addList(list, stack);
+                    }
+                    list.items.add(Item.qualifier(version.substring(start, i), true));
+                    start = i;
+                    list = addList(list, stack);
+                }
+                digit = true;
+            } else {
+                if (digit && i > start) {
+                    list.items.add(Item.parse(true, version.substring(start, i)));
+                    start = i;
+                    list = addList(list, stack);
+                }
+                digit = false;
+            }
+        }
+        if (version.length() > start) {
+            if (!digit && !list.items.isEmpty()) {
+                list = addList(list, stack);
+            }
+            list.items.add(Item.parse(digit, version.substring(start)));
+        }
+        while (!stack.isEmpty()) {
+            stack.pop().normalize();
+        }
+        return root.isValid() ? root : null;
+    }
+
+    private static Item addList(Item parent, Deque<Item> stack) {
+        Item list = Item.list();
+        parent.items.add(list);
+        stack.push(list);
+        return list;
+    }
+
+    private static void appendList(StringBuilder key, Item list) {
+        List<Item> items = list.items;
+        for (int i = 0; i < items.size(); i++) {
+            appendItem(key, items.get(i), items, i);
+        }
+        key.append(END_TAG);
+    }
+
+    private static void appendItem(StringBuilder key, Item item, List<Item> items, int index) {
+        int nullOrder = item.compareToNull();
+        if (nullOrder == 0) {
+            // Ordered by the following items, which are compared with missing items of shorter versions
+            boolean beforeLower = followingOrder(items, index) < 0;
+            if (item.type == Item.NUMBER) {
+                key.append(beforeLower ? ZERO_BEFORE_LOWER_TAG : ZERO_BEFORE_GREATER_TAG);
+            } else if (item.type == Item.QUALIFIER) {
+                key.append(beforeLower ? RELEASE_BEFORE_LOWER_TAG : RELEASE_BEFORE_GREATER_TAG);
+            } else {
+                key.append(beforeLower ? NULL_LIST_BEFORE_LOWER_TAG : NULL_LIST_BEFORE_GREATER_TAG);
+                appendList(key, item);
+            }
+            return;
+        }
+        switch (item.type) {
+            case Item.NUMBER:
+                key.append(NUMBER_TAG).append((char) ('0' + item.value.length())).append(item.value);
+                break;
+            case Item.QUALIFIER:
+                int qualifierIndex = QUALIFIERS.indexOf(item.value);
+                if (nullOrder < 0) {
+                    key.append(QUALIFIER_TAG).append((char) ('0' + qualifierIndex));
+                } else if (qualifierIndex >= 0) {
+                    key.append(GREATER_QUALIFIER_TAG).append((char) ('0' + qualifierIndex));
+                } else {
+                    key.append(GREATER_QUALIFIER_TAG).append((char) ('0' + QUALIFIERS.size())).append(item.value)
+                            .append(QUALIFIER_END);
+                }
+                break;
+            default:
+                key.append(nullOrder < 0 ? LIST_TAG : GREATER_LIST_TAG);
+                appendList(key, item);
+        }
+    }
+
+    /**
+     * @return comparison of items after given index with missing items, i.e. comparison of the first one which is not
+     *     null, or 0 if all of them are null
+     */
+    private static int followingOrder(List<Item> items, int index) {
+        for (int i = index + 1; i < items.size(); i++) {
+            int order = items.get(i).compareToNull();
+            if (order != 0) {
+                return order;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * An item of a Maven version, which is either a number, a qualifier or a list of items.
+     */
+    private static final class Item {
+        static final int NUMBER = 0;
+        static final int QUALIFIER = 1;
+        static final int LIST = 2;
+
+        static final Item ZERO = new Item(NUMBER, "0");
+
+        final int type;
+        /** Digits of numbers without leading zeros, or qualifiers after replacing aliases */
+        final String value;
+        final List<Item> items;
+
+        private Item(int type, String value) {
+            this.type = type;
+            this.value = value;
+            this.items = type == LIST ? new ArrayList<>() : null;
+        }
+
+        static Item list() {
+            return new Item(LIST, null);
+        }
+
+        static Item parse(boolean digit, String value) {
+            return digit ? number(value) : qualifier(value, false);
+        }
+
+        static Item number(String value) {
+            StringBuilder digits = new StringBuilder(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                int d = Character.digit(value.charAt(i), 10);
+                if (d != 0 || digits.length() > 0) {
+                    digits.append((char) ('0' + d));
+                }
+            }
+            return new Item(NUMBER, digits.length() == 0 ? "0" : digits.toString());
+        }
+
+        static Item qualifier(String value, boolean followedByDigit) {
+            if (followedByDigit && value.length() == 1) {
+                switch (value.charAt(0)) {
+                    case 'a':
+                        value = "alpha";
+                        break;
+                    case 'b':
+                        value = "beta";
+                        break;
+                    case 'm':
+                        value = "milestone";
+                        break;
+                    default:
+                }
+            }
+            switch (value) {
+                case "ga":
+                case "final":
+                case "release":
+                    value = "";
+                    break;
+                case "cr":
+                    value = "rc";
+                    break;
+                default:
+            }
+            return new Item(QUALIFIER, value);
+        }
+
+        /**
+         * @return comparison of this item with a missing item, the same as Maven
+         */
+        int compareToNull() {
+            switch (type) {
+                case NUMBER:
+                    return value.equals("0") ? 0 : 1;
+                case QUALIFIER:
+                    int index = QUALIFIERS.indexOf(value);
+                    return Integer.signum((index < 0 ? QUALIFIERS.size() : index) - RELEASE_INDEX);
+                default:
+                    return followingOrder(items, -1);
+            }
+        }
+
+        /**
+         * Removes trailing null items, skipping lists which are not null, the same as Maven.
+         */
+        void normalize() {
+            for (int i = items.size() - 1; i >= 0; i--) {
+                Item item = items.get(i);
+                if (item.compareToNull() == 0) {
+                    items.remove(i);
+                } else if (item.type != LIST) {
+                    break;
+                }
+            }
+        }
+
+        boolean isValid() {
+            switch (type) {
+                case NUMBER:
+                    return value.length() <= MAX_DIGITS;
+                case QUALIFIER:
+                    return true;
+                default:
+                    return items.stream().allMatch(Item::isValid);
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * A page of search results.
+ *
+ * @param <T> type of result items
+ */
+public class ResultPage<T> {
+
+    private final List<T> items;
+    private final ContinuationToken next;
+
+    public ResultPage(List<T> items, @Nullable ContinuationToken next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return token to fetch next page, or null if this is the last page
+     */
+    @Nullable
+    public ContinuationToken getNext() {
+        return next;
+    }
+
+    public <R> ResultPage<R> map(Function<T, R> mapper) {
+        return new ResultPage<>(items.stream().map(mapper).collect(Collectors.toList()), next);
+    }
+}
@@ -0,0 +1,124 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+/**
+ * Encodes versions of <a href="https://semver.org/spec/v2.0.0.html">semantic versioning 2.0.0</a> into
+ * {@link #toKey(String) sortable keys}, e.g. 1.0.0-alpha &lt; 1.0.0-alpha.1 &lt; 1.0.0-beta &lt; 1.0.0-rc.1 &lt;
+ * 1.0.0 &lt; 1.0.1 &lt; 1.10.0. Build metadata, after '+', does not affect the order.
+ */
+final class SemanticVersion {
+
+    /*
+     * Tags of pre-release identifiers and release in keys, which are less than characters of identifiers. So a
+     * pre-release is less than release, numeric identifiers are less than alphanumeric ones and an identifier is less
+     * than the ones it is prefix of.
+     */
+    private static final char NUMERIC_IDENTIFIER_TAG = '\u0001';
+    private static final char IDENTIFIER_TAG = '\u0002';
+    private static final char RELEASE_TAG = '\u0003';
+    /** Maximum number of digits of a number, as the number of digits is encoded in a single character */
+    private static final int MAX_DIGITS = 200;
+
+    private SemanticVersion() {
+    }
+
+    /**
+     * Encodes a version into a key which lexicographical order of keys is the same as precedence of versions. Numbers
+     * are prefixed by their number of digits, so they are compared as numbers, and each pre-release identifier is
+     * prefixed by a tag of its type.
+     *
+     * @return sortable key of version, or null if it's not a valid semantic version
+     */
+    static String toKey(String version) {
+        if (version == null || version.isEmpty()) {
+            return null;
+        }
+        int end = version.indexOf('+');
+        if (end < 0) {
+            end = version.length();
+        } else if (!isValidIdentifiers(version, end + 1, version.length(), false)) {
+            return null;
+        }
+        StringBuilder key = new StringBuilder(end + 4);
+        int position = 0;
+        for (int i = 0; i < 3; i++) {
+            int numberEnd = position;
+            while (numberEnd < end && isDigit(version.charAt(numberEnd))) {
+                numberEnd++;
+            }
+            char separator = i < 2 ? '.' : '-';
+            if (!appendNumber(key, version, position, numberEnd)
+                    || (numberEnd < end && (version.charAt(numberEnd) != separator)) || (i < 2 && numberEnd == end)) {
+                return null;
+            }
+            position = numberEnd + 1;
+        }
+        if (position > end) {
+            return key.append(RELEASE_TAG).toString();
+        }
+        if (!isValidIdentifiers(version, position, end, true)) {
+            return null;
+        }
+        while (position <= end) {
+            int identifierEnd = version.indexOf('.', position);
+            if (identifierEnd < 0 || identifierEnd > end) {
+                identifierEnd = end;
+            }
+            if (isNumeric(version, position, identifierEnd)) {
+                key.append(NUMERIC_IDENTIFIER_TAG);
+                appendNumber(key, version, position, identifierEnd);
+            } else {
+                key.append(IDENTIFIER_TAG).append(version, position, identifierEnd);
+            }
+            position = identifierEnd + 1;
+        }
+        return key.toString();
+    }
+
+    /**
+     * Appends a number prefixed by its number of digits.
+     *
+     * @return false if number is empty, has leading zeros or too many digits
+     */
+    private static boolean appendNumber(StringBuilder key, String version, int start, int end) {
+        int digits = end - start;
+        if (digits == 0 || digits > MAX_DIGITS || (digits > 1 && version.charAt(start) == '0')) {
+            return false;
+        }
+        key.append((char) ('0' + digits)).append(version, start, end);
+        return true;
+    }
+
+    /**
+     * @param preRelease whether identifiers are pre-release ones, which numeric ones should not have leading zeros
+     * @return true if range is non-empty identifiers of [0-9A-Za-z-] separated by '.'
+     */
+    private static boolean isValidIdentifiers(String version, int start, int end, boolean preRelease) {
+        int identifierStart = start;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? version.charAt(i) : '.';
+            if (c == '.') {
+                if (i == identifierStart || (preRelease && isNumeric(version, identifierStart, i)
+                        && i - identifierStart > 1 && version.charAt(identifierStart) == '0')) {
+                    return false;
+                }
+                identifierStart = i + 1;
+            } else if (!isDigit(c) && !(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNumeric(String version, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isDigit(version.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,107 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.sonatype.goodies.common.ComponentSupport;
+
+/**
+ * Bounded cache of tags by name, in front of database lookups of {@link TagStore}. Entries are evicted by size and
+ * TTL, and are invalidated by {@link TagStore} whenever a tag is written. Cached tags are shared between callers, so
+ * they hold unmodifiable attributes and components.
+ *
+ * <p>A lookup which started before an invalidation may load the old version of the tag, so loaded tags are cached
+ * only if no invalidation happened during the load.
+ */
+@Named
+@Singleton
+public class TagCache extends ComponentSupport {
+
+    private final Cache<String, Tag> cache;
+
+    /**
+     * Incremented on each invalidation, guarded by lock of this object.
+     */
+    private long invalidations;
+
+    @Inject
+    public TagCache(@Named("${nexus.tag.cache.maxSize:-1000}") int maxSize,
+            @Named("${nexus.tag.cache.ttlSeconds:-60}") int ttlSeconds, MetricRegistry metricRegistry) {
+        checkArgument(maxSize >= 0, "Maximum size of tag cache should not be negative");
+        checkArgument(ttlSeconds >= 0, "TTL of tag cache should not be negative");
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CacheGauges.register(metricRegistry, TagCache.class, cache);
+    }
+
+    /**
+     * Returns cached tag with given name, or loads and caches it if it's not cached.
+     *
+     * @param loader loads tag with given name from database, may throw exception if tag does not exist
+     */
+    public Tag get(String name, Function<String, Tag> loader) {
+        Tag tag = cache.getIfPresent(name);
+        if (tag != null) {
+            return tag;
+        }
+        long invalidationsBeforeLoad;
+        synchronized (this) {
+            invalidationsBeforeLoad = invalidations;
+        }
+        tag = immutableCopy(loader.apply(name));
+        synchronized (this) {
+            if (invalidations == invalidationsBeforeLoad) {
+                cache.put(name, tag);
+            }
+        }
+        return tag;
+    }
+
+    /**
+     * Invalidates cached tags with given names. It should be called after the changes of tags are committed.
+     */
+    public synchronized void invalidateAll(Collection<String> names) {
+        invalidations++;
+        cache.invalidateAll(names);
+    }
+
+    /**
+     * @return statistics of hits, misses and evictions since start
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return copy of given tag with unmodifiable attributes and components, which can be shared between callers
+     */
+    static Tag immutableCopy(Tag tag) {
+        // Attributes and components are null in tags with a projection of fields
+        Map<String, String> attributes =
+                tag.getAttributes() == null ? null : Collections.unmodifiableMap(new HashMap<>(tag.getAttributes()));
+        List<AssociatedComponent> components =
+                tag.getComponents() == null ? null : Collections.unmodifiableList(new ArrayList<>(tag.getComponents()));
+        Tag copy = new Tag(tag.getName(), attributes, components, tag.getFirstCreated(), tag.getLastUpdated());
+        copy.setVersion(tag.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,212 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.index.OIndex;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange.Type;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.orient.OClassNameBuilder;
+import org.sonatype.nexus.orient.OIndexNameBuilder;
+
+/**
+ * Append-only log of changes of tags, which is written in the same transaction as the changes themselves. Each record
+ * holds a sequence number, which is one more than the sequence number of the previous record. Sequence numbers are
+ * assigned in memory right before commit, and transactions with changes are committed one at a time, so concurrent
+ * transactions do not conflict on sequence numbers and records are visible in the order of their sequence numbers.
+ * Hence a consumer which has read changes up to a sequence number never misses a change by reading changes after it.
+ */
+@Named
+@Singleton
+public class TagChangeLog extends ComponentSupport {
+
+    private static final String TYPE_NAME = "tag_change";
+
+    static final String DB_CLASS = new OClassNameBuilder().type(TYPE_NAME).build();
+
+    private static final String SEQUENCE_FIELD = "sequence";
+    private static final String TYPE_FIELD = "type";
+    private static final String NAME_FIELD = "name";
+    private static final String TIMESTAMP_FIELD = "timestamp";
+
+    private static final String SEQUENCE_INDEX =
+            new OIndexNameBuilder().type(DB_CLASS).property(SEQUENCE_FIELD).build();
+
+    private static final String READ_QUERY =
+            "select from " + DB_CLASS + " where " + SEQUENCE_FIELD + " > ? order by " + SEQUENCE_FIELD + " limit ";
+    private static final String PRUNE_COMMAND =
+            "delete from " + DB_CLASS + " where " + TIMESTAMP_FIELD + " < ? and " + SEQUENCE_FIELD + " < ?";
+
+    private final int retentionDays;
+    private final int pruneIntervalMinutes;
+
+    /** Number of commits which are notified so far, used to wake up consumers waiting for changes */
+    private long commits;
+
+    private final Object sequenceLock = new Object();
+
+    /** Sequence number of the last committed change, guarded by sequence lock */
+    private long committedSequence;
+
+    @Inject
+    public TagChangeLog(@Named("${nexus.tag.changeLog.retentionDays:-30}") int retentionDays,
+            @Named("${nexus.tag.changeLog.pruneIntervalMinutes:-60}") int pruneIntervalMinutes) {
+        checkArgument(retentionDays > 0, "Retention of tag change log should be positive");
+        checkArgument(pruneIntervalMinutes > 0, "Prune interval of tag change log should be positive");
+        this.retentionDays = retentionDays;
+        this.pruneIntervalMinutes = pruneIntervalMinutes;
+    }
+
+    /**
+     * @return interval between removals of changes older than retention period, in minutes
+     */
+    public int getPruneIntervalMinutes() {
+        return pruneIntervalMinutes;
+    }
+
+    /**
+     * Creates change log class in database if it does not exist, and loads sequence number of the last change.
+     *
+     * @param tx connection to the tag database
+     */
+    public void register(ODatabaseDocumentTx tx) {
+        OSchema schema = tx.getMetadata().getSchema();
+        if (!schema.existsClass(DB_CLASS)) {
+            OClass type = schema.createClass(DB_CLASS);
+            type.createProperty(SEQUENCE_FIELD, OType.LONG).setMandatory(true).setNotNull(true);
+            type.createProperty(TYPE_FIELD, OType.STRING).setMandatory(true).setNotNull(true);
+            type.createProperty(NAME_FIELD, OType.STRING).setMandatory(true).setNotNull(true);
+            type.createProperty(TIMESTAMP_FIELD, OType.DATETIME).setMandatory(true).setNotNull(true);
+            type.createIndex(SEQUENCE_INDEX, INDEX_TYPE.UNIQUE, SEQUENCE_FIELD);
+            log.info("Created {} class in {} db.", DB_CLASS, tx.getName());
+        }
+        Long last = lastSequence(tx);
+        synchronized (sequenceLock) {
+            committedSequence = last == null ? 0 : last;
+        }
+    }
+
+    /**
+     * Removes changes which are older than retention period. The last change is always kept, so sequence numbers are
+     * never reused. It's called on startup and then periodically every prune interval.
+     *
+     * @param tx connection to the tag database
+     */
+    public void prune(ODatabaseDocumentTx tx) {
+        Long last = lastSequence(tx);
+        if (last == null) {
+            return;
+        }
+        Date threshold = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        Number removed = tx.command(new OCommandSQL(PRUNE_COMMAND)).execute(threshold, last);
+        log.info("{} tag changes older than {} days are removed from change log.", removed, retentionDays);
+    }
+
+    /**
+     * Appends given changes to the log and commits given transaction. Transactions with changes are committed one at a
+     * time, but only their commit is serialized, not the work before it. If commit fails, sequence numbers of its
+     * changes are assigned to the next commit, so there is no gap between sequence numbers.
+     *
+     * @param tx transaction which makes the changes
+     * @param changes type of change of each changed tag by name of tag, in order
+     */
+    public void commit(ODatabaseDocumentTx tx, Map<String, Type> changes) {
+        if (changes.isEmpty()) {
+            tx.commit();
+            return;
+        }
+        synchronized (sequenceLock) {
+            long sequence = committedSequence;
+            Date timestamp = new Date();
+            for (Entry<String, Type> change : changes.entrySet()) {
+                ODocument document = new ODocument(DB_CLASS);
+                document.field(SEQUENCE_FIELD, ++sequence);
+                document.field(TYPE_FIELD, change.getValue().name());
+                document.field(NAME_FIELD, change.getKey());
+                document.field(TIMESTAMP_FIELD, timestamp);
+                tx.save(document);
+            }
+            tx.commit();
+            committedSequence = sequence;
+        }
+    }
+
+    /**
+     * @param tx connection to the tag database
+     * @param after sequence number of the last change which is already read, or zero to read from the start
+     * @param limit maximum number of changes to read
+     * @return changes after given sequence number, ordered by sequence number
+     */
+    public List<TagChange> read(ODatabaseDocumentTx tx, long after, int limit) {
+        List<ODocument> documents = tx.query(new OSQLSynchQuery<>(READ_QUERY + limit), after);
+        return documents.stream()
+                .map(document -> new TagChange(document.field(SEQUENCE_FIELD),
+                        Type.valueOf(document.field(TYPE_FIELD)), document.field(NAME_FIELD),
+                        document.field(TIMESTAMP_FIELD)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return sequence number of the first retained change, or null if there is no change
+     */
+    public Long firstSequence(ODatabaseDocumentTx tx) {
+        return (Long) sequenceIndex(tx).getFirstKey();
+    }
+
+    /**
+     * @return sequence number of the last committed change, or null if there is no change
+     */
+    public Long lastSequence(ODatabaseDocumentTx tx) {
+        return (Long) sequenceIndex(tx).getLastKey();
+    }
+
+    private static OIndex<?> sequenceIndex(ODatabaseDocumentTx tx) {
+        return tx.getMetadata().getIndexManager().getIndex(SEQUENCE_INDEX);
+    }
+
+    /**
+     * Wakes up consumers waiting for changes. It should be called after changes are committed.
+     */
+    public synchronized void committed() {
+        commits++;
+        notifyAll();
+    }
+
+    /**
+     * @return number of commits notified so far, which can be passed to {@link #awaitCommit(long, long)}
+     */
+    public synchronized long commits() {
+        return commits;
+    }
+
+    /**
+     * Waits until a commit is notified after given number of commits, or given timeout elapses.
+     *
+     * @param observed number of commits observed before reading changes
+     */
+    public synchronized void awaitCommit(long observed, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long remaining = timeoutMillis;
+        while (commits == observed && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+    }
+}
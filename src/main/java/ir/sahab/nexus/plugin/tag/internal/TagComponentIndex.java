@@ -0,0 +1,248 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
+import com.orientechnologies.orient.core.metadata.schema.OSchema;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
+import ir.sahab.nexus.plugin.tag.internal.ComponentSearchCriterion.Operator;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.orient.OClassNameBuilder;
+import org.sonatype.nexus.orient.OIndexNameBuilder;
+
+/**
+ * Maintains a reverse index from associated components to tags. Each record of the index class holds coordinates and
+ * version of a component besides a link to the tag it's associated with. So tags associated with a component can be
+ * found by probing the index on "repository:group:name" key, without loading any tag. Versions are compared by their
+ * sortable keys in the {@link VersionScheme} of repository of each criterion, which are held for all schemes.
+ */
+@Named
+@Singleton
+public class TagComponentIndex extends ComponentSupport {
+
+    private static final String TYPE_NAME = "tag_component";
+
+    static final String DB_CLASS = new OClassNameBuilder().type(TYPE_NAME).build();
+
+    private static final String TAG_FIELD = "tag";
+    private static final String KEY_FIELD = "key";
+    private static final String REPOSITORY_FIELD = "repository";
+    private static final String GROUP_FIELD = "group";
+    private static final String NAME_FIELD = "name";
+    private static final String VERSION_FIELD = "version";
+    private static final String VERSION_KEYS_FIELD = "versionKeys";
+
+    private static final String TAG_INDEX = new OIndexNameBuilder().type(DB_CLASS).property(TAG_FIELD).build();
+    private static final String KEY_INDEX = new OIndexNameBuilder().type(DB_CLASS).property(KEY_FIELD).build();
+
+    private static final String FIND_BY_KEY_QUERY = "select from " + DB_CLASS + " where " + KEY_FIELD + " = ?";
+    private static final String FIND_BY_VERSION_QUERY = FIND_BY_KEY_QUERY + " and " + VERSION_FIELD + " = ?";
+    private static final String FIND_BY_VERSION_KEY_QUERY_FORMAT =
+            FIND_BY_KEY_QUERY + " and " + VERSION_KEYS_FIELD + "['%s'] %s ?";
+    private static final String FIND_BY_TAG_QUERY = "select from " + DB_CLASS + " where " + TAG_FIELD + " = ?";
+    private static final String FIND_BY_KEY_AND_TAG_QUERY = FIND_BY_KEY_QUERY + " and " + TAG_FIELD + " = ?";
+
+    private final TagMetrics metrics;
+    private final VersionSchemes versionSchemes;
+
+    @Inject
+    public TagComponentIndex(TagMetrics metrics, VersionSchemes versionSchemes) {
+        this.metrics = metrics;
+        this.versionSchemes = versionSchemes;
+    }
+
+    /**
+     * Creates index class in database if it does not exist.
+     *
+     * @param tx connection to the tag database
+     * @return true if index class is created, so index records should be built for existing tags, false otherwise
+     */
+    public boolean register(ODatabaseDocumentTx tx) {
+        OSchema schema = tx.getMetadata().getSchema();
+        if (schema.existsClass(DB_CLASS)) {
+            return false;
+        }
+        OClass type = schema.createClass(DB_CLASS);
+        type.createProperty(TAG_FIELD, OType.LINK).setMandatory(true).setNotNull(true);
+        type.createProperty(KEY_FIELD, OType.STRING).setMandatory(true).setNotNull(true);
+        type.createProperty(REPOSITORY_FIELD, OType.STRING).setMandatory(true).setNotNull(true);
+        type.createProperty(GROUP_FIELD, OType.STRING);
+        type.createProperty(NAME_FIELD, OType.STRING).setMandatory(true).setNotNull(true);
+        type.createProperty(VERSION_FIELD, OType.STRING);
+        type.createProperty(VERSION_KEYS_FIELD, OType.EMBEDDEDMAP, OType.STRING);
+
+        type.createIndex(TAG_INDEX, INDEX_TYPE.NOTUNIQUE, TAG_FIELD);
+        type.createIndex(KEY_INDEX, INDEX_TYPE.NOTUNIQUE, KEY_FIELD);
+        log.info("Created {} class in {} db.", DB_CLASS, tx.getName());
+        return true;
+    }
+
+    /**
+     * Adds index records for components associated with given tag.
+     *
+     * @param tx connection to the tag database
+     * @param tag document of the tag, as written by {@link TagEntityAdapter}
+     */
+    public void add(ODatabaseDocumentTx tx, ODocument tag) {
+        for (ODocument component : TagEntityAdapter.componentDocuments(tag)) {
+            // Embedded map of version keys is copied, as it's owned by the embedded document of component
+            Map<String, String> versionKeys = component.field(TagEntityAdapter.COMPONENT_VERSION_KEYS_FIELD);
+            add(tx, tag, component.field(TagEntityAdapter.COMPONENT_REPOSITORY_FIELD),
+                    component.field(TagEntityAdapter.COMPONENT_GROUP_FIELD),
+                    component.field(TagEntityAdapter.COMPONENT_NAME_FIELD),
+                    component.field(TagEntityAdapter.COMPONENT_VERSION_FIELD), new HashMap<>(versionKeys));
+        }
+    }
+
+    /**
+     * Adds index records for given components which are newly associated with given tag.
+     *
+     * @param tx connection to the tag database
+     * @param tag document of the tag, as written by {@link TagEntityAdapter}
+     * @param components components added to the tag
+     */
+    public void add(ODatabaseDocumentTx tx, ODocument tag, Collection<AssociatedComponent> components) {
+        for (AssociatedComponent component : components) {
+            add(tx, tag, component.getRepository(), component.getGroup(), component.getName(),
+                    component.getVersion(), VersionScheme.toKeys(component.getVersion()));
+        }
+    }
+
+    private void add(ODatabaseDocumentTx tx, ODocument tag, String repository, String group, String name,
+            String version, Map<String, String> versionKeys) {
+        ODocument document = new ODocument(DB_CLASS);
+        document.field(TAG_FIELD, tag);
+        document.field(KEY_FIELD, key(repository, group, name));
+        document.field(REPOSITORY_FIELD, repository);
+        document.field(GROUP_FIELD, group);
+        document.field(NAME_FIELD, name);
+        document.field(VERSION_FIELD, version);
+        document.field(VERSION_KEYS_FIELD, versionKeys);
+        tx.save(document);
+    }
+
+    /**
+     * Removes all index records of given tag.
+     *
+     * @param tx connection to the tag database
+     * @param tag identity of the tag
+     */
+    public void remove(ODatabaseDocumentTx tx, ORID tag) {
+        List<ODocument> documents = tx.query(new OSQLSynchQuery<>(FIND_BY_TAG_QUERY), tag);
+        for (ODocument document : documents) {
+            tx.delete(document);
+        }
+    }
+
+    /**
+     * Removes index records of given components which are no longer associated with given tag. Records are found by
+     * their component key, so cost of removal does not depend on the number of other components of the tag.
+     *
+     * @param tx connection to the tag database
+     * @param tag identity of the tag
+     * @param components components removed from the tag
+     */
+    public void remove(ODatabaseDocumentTx tx, ORID tag, Collection<AssociatedComponent> components) {
+        for (AssociatedComponent component : components) {
+            String key = key(component.getRepository(), component.getGroup(), component.getName());
+            List<ODocument> documents = tx.query(new OSQLSynchQuery<>(FIND_BY_KEY_AND_TAG_QUERY), key, tag);
+            for (ODocument document : documents) {
+                if (Objects.equals(component.getGroup(), document.field(GROUP_FIELD))
+                        && component.getName().equals(document.field(NAME_FIELD))
+                        && Objects.equals(component.getVersion(), document.field(VERSION_FIELD))) {
+                    tx.delete(document);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces index records of given tag with records of its current components.
+     */
+    public void update(ODatabaseDocumentTx tx, ODocument tag) {
+        remove(tx, tag.getIdentity());
+        add(tx, tag);
+    }
+
+    /**
+     * Finds tags which have at least one associated component matching each of given criteria.
+     *
+     * @param tx connection to the tag database
+     * @param criteria criteria to match, should not be empty
+     * @return identities of found tags
+     */
+    public Set<ORID> findTags(ODatabaseDocumentTx tx, Collection<ComponentSearchCriterion> criteria) {
+        Set<ORID> result = null;
+        for (ComponentSearchCriterion criterion : criteria) {
+            Set<ORID> found = findTags(tx, criterion);
+            if (result == null) {
+                result = found;
+            } else {
+                result.retainAll(found);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new HashSet<>() : result;
+    }
+
+    /**
+     * Versions are compared inside the query, using version keys of scheme of repository for range operators. So only
+     * coordinates of found records are verified here.
+     */
+    private Set<ORID> findTags(ODatabaseDocumentTx tx, ComponentSearchCriterion criterion) {
+        String key = key(criterion.getRepository(), criterion.getGroup(), criterion.getName());
+        List<ODocument> documents;
+        Operator operator = criterion.getVersionOperator();
+        if (operator == null) {
+            documents = tx.query(new OSQLSynchQuery<>(FIND_BY_KEY_QUERY), key);
+        } else if (operator == Operator.EQ) {
+            documents = tx.query(new OSQLSynchQuery<>(FIND_BY_VERSION_QUERY), key, criterion.getVersionValue());
+        } else {
+            VersionScheme scheme = versionSchemes.forRepository(criterion.getRepository());
+            String versionKey = criterion.getVersionKey(scheme);
+            if (versionKey == null) {
+                // Range operators are not applicable to versions which are not supported by the scheme
+                return new HashSet<>();
+            }
+            String query = String.format(FIND_BY_VERSION_KEY_QUERY_FORMAT, scheme.getKeyName(),
+                    operator.getQueryOperator());
+            documents = tx.query(new OSQLSynchQuery<>(query), key, versionKey);
+        }
+        Set<ORID> tags = new HashSet<>();
+        for (ODocument document : documents) {
+            if (Objects.equals(criterion.getGroup(), document.field(GROUP_FIELD))
+                    && criterion.getName().equals(document.field(NAME_FIELD))) {
+                // Raw value is used in order to prevent loading of linked tag
+                OIdentifiable tag = document.rawField(TAG_FIELD);
+                tags.add(tag.getIdentity());
+            }
+        }
+        metrics.componentFiltered(documents.size(), tags.size());
+        log.debug("{} tags found for component criterion {}", tags.size(), key);
+        return tags;
+    }
+
+    /**
+     * Note that null and empty groups result in same key, so coordinates of found records should be verified.
+     */
+    private static String key(String repository, String group, String name) {
+        return repository + ':' + (group == null ? "" : group) + ':' + name;
+    }
+}
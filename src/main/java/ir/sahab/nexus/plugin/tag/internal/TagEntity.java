@@ -2,13 +2,13 @@ package ir.sahab.nexus.plugin.tag.internal;
 
 import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
 import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
-import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.sonatype.nexus.common.entity.AbstractEntity;
+import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
 
 
 /**
@@ -76,20 +76,15 @@ class TagEntity extends AbstractEntity {
         this.components = components;
     }
 
-    public Tag toDto() {
-        return new Tag(name, attributes, components, firstCreated, lastUpdated);
-    }
-
     /**
-     * @return true if criteria matches with associated components of this tag, otherwise false.
+     * Version of tag is included only if entity is attached, so it should be called after changes are committed.
      */
-    public boolean matches(Collection<ComponentSearchCriterion> componentVersionCriteria) {
-        for (ComponentSearchCriterion criterion : componentVersionCriteria) {
-            if (components.stream().noneMatch(criterion::matches)) {
-                return false;
-            }
+    public Tag toDto() {
+        Tag tag = new Tag(name, attributes, components, firstCreated, lastUpdated);
+        if (AttachedEntityHelper.isAttached(this)) {
+            tag.setVersion(AttachedEntityHelper.version(this));
         }
-        return true;
+        return tag;
     }
 
     @Override
@@ -1,7 +1,10 @@
 package ir.sahab.nexus.plugin.tag.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.index.OIndex;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
@@ -9,16 +12,26 @@ import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.query.OSQLSynchQuery;
 import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
 import org.sonatype.nexus.orient.DatabaseInstance;
 import org.sonatype.nexus.orient.OClassNameBuilder;
 import org.sonatype.nexus.orient.OIndexNameBuilder;
+import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
 import org.sonatype.nexus.orient.entity.IterableEntityAdapter;
 
 /**
@@ -35,17 +48,57 @@ public class TagEntityAdapter extends IterableEntityAdapter<TagEntity> {
     private static final String COMPONENTS_FIELD = "components";
     private static final String FIRST_CREATED_FIELD = "firstCreated";
     private static final String LAST_UPDATED_FIELD = "lastUpdated";
+    private static final String ID_FIELD = "@rid";
+    /** Alias of identity of tags in projected queries */
+    private static final String PROJECTED_ID_FIELD = "id";
+    /** Aliases of results of count queries */
+    private static final String COUNT_FIELD = "count";
+    private static final String GROUP_VALUE_FIELD = "value";
+    /** Projection of queries which read whole tag documents */
+    private static final String ALL_FIELDS = "*";
+    /**
+     * Holds an entry composed of key and value of each attribute, plus an entry composed of key and
+     * {@link ComponentSearchCriterion.Version#toKey(String) sortable key} of value of each attribute with a numeric
+     * value. Its index serves prefix, existence and range predicates of attributes as index range scans, which the
+     * hash index of attribute values can not serve.
+     */
+    private static final String ATTRIBUTE_ENTRIES_FIELD = "attributeEntries";
+    /** Separates key and value of attributes in attribute entries */
+    private static final char ENTRY_VALUE_SEPARATOR = '\u0001';
+    /** Separates key and sortable key of value of attributes in attribute entries */
+    private static final char ENTRY_VALUE_KEY_SEPARATOR = '\u0002';
+    /** Upper bound of characters, used as the end of ranges of entries starting with a prefix */
+    private static final char MAX_CHAR = '\uffff';
 
-    private static final String COMPONENT_REPOSITORY_FIELD = "repository";
-    private static final String COMPONENT_GROUP_FIELD = "group";
-    private static final String COMPONENT_NAME_FIELD = "name";
-    private static final String COMPONENT_VERSION_FIELD = "version";
+    static final String COMPONENT_REPOSITORY_FIELD = "repository";
+    static final String COMPONENT_GROUP_FIELD = "group";
+    static final String COMPONENT_NAME_FIELD = "name";
+    static final String COMPONENT_VERSION_FIELD = "version";
+    /** Holds sortable keys of component version keyed by name of {@link VersionScheme version schemes} */
+    static final String COMPONENT_VERSION_KEYS_FIELD = "versionKeys";
 
     private static final String NAME_INDEX = new OIndexNameBuilder().type(DB_CLASS).property(NAME_FIELD).build();
     private static final String ATTR_INDEX = new OIndexNameBuilder().type(DB_CLASS).property(ATTRIBUTES_FIELD).build();
+    private static final String FIRST_CREATED_INDEX =
+            new OIndexNameBuilder().type(DB_CLASS).property(FIRST_CREATED_FIELD).build();
+    private static final String ATTRIBUTE_ENTRIES_INDEX =
+            new OIndexNameBuilder().type(DB_CLASS).property(ATTRIBUTE_ENTRIES_FIELD).build();
+    private static final String FIND_BY_ATTRIBUTE_ENTRY_RANGE_QUERY =
+            "select from index:" + ATTRIBUTE_ENTRIES_INDEX + " where key between ? and ?";
+
+    /**
+     * Version of tag schema, stored as a custom attribute of tag class. It is used to detect databases created by
+     * older versions of plugin which should be upgraded on startup.
+     */
+    private static final String SCHEMA_VERSION_ATTRIBUTE = "schemaVersion";
+    private static final int SCHEMA_VERSION = 2;
 
-    public TagEntityAdapter() {
+    private final VersionSchemes versionSchemes;
+
+    @Inject
+    public TagEntityAdapter(VersionSchemes versionSchemes) {
         super(TYPE_NAME);
+        this.versionSchemes = versionSchemes;
     }
 
     @Override
@@ -55,10 +108,52 @@ public class TagEntityAdapter extends IterableEntityAdapter<TagEntity> {
         type.createProperty(LAST_UPDATED_FIELD, OType.DATETIME).setMandatory(true).setNotNull(true);
         type.createProperty(ATTRIBUTES_FIELD, OType.EMBEDDEDMAP, OType.STRING).setMandatory(true).setNotNull(true);
         type.createProperty(COMPONENTS_FIELD, OType.EMBEDDEDLIST).setMandatory(true).setNotNull(true);
+        type.createProperty(ATTRIBUTE_ENTRIES_FIELD, OType.EMBEDDEDLIST, OType.STRING).setMandatory(true)
+                .setNotNull(true);
 
         type.createIndex(NAME_INDEX, INDEX_TYPE.UNIQUE, NAME_FIELD);
         type.createIndex(ATTR_INDEX, INDEX_TYPE.NOTUNIQUE_HASH_INDEX, ATTRIBUTES_FIELD + " BY VALUE");
         type.createIndex(LAST_UPDATED_FIELD, INDEX_TYPE.NOTUNIQUE, LAST_UPDATED_FIELD);
+        type.createIndex(FIRST_CREATED_INDEX, INDEX_TYPE.NOTUNIQUE, FIRST_CREATED_FIELD);
+        type.createIndex(ATTRIBUTE_ENTRIES_INDEX, INDEX_TYPE.NOTUNIQUE, ATTRIBUTE_ENTRIES_FIELD);
+        type.setCustom(SCHEMA_VERSION_ATTRIBUTE, String.valueOf(SCHEMA_VERSION));
+    }
+
+    /**
+     * Upgrades schema and existing records of tag class if they are created by an older version of plugin. Adapter
+     * should be registered before calling this method.
+     *
+     * @param tx connection to the database containing tag class
+     */
+    public void upgrade(ODatabaseDocumentTx tx) {
+        OClass type = getSchemaType();
+        String customVersion = type.getCustom(SCHEMA_VERSION_ATTRIBUTE);
+        int version = customVersion == null ? 1 : Integer.parseInt(customVersion);
+        if (version >= SCHEMA_VERSION) {
+            return;
+        }
+        log.info("Upgrading tag schema from version {} to {}.", version, SCHEMA_VERSION);
+        if (version < 2) {
+            type.createIndex(FIRST_CREATED_INDEX, INDEX_TYPE.NOTUNIQUE, FIRST_CREATED_FIELD);
+            int updated = 0;
+            for (ODocument document : browseDocuments(tx)) {
+                document.field(ATTRIBUTE_ENTRIES_FIELD, attributeEntries(document.field(ATTRIBUTES_FIELD)));
+                List<ODocument> componentDocuments = componentDocuments(document);
+                for (ODocument componentDocument : componentDocuments) {
+                    String componentVersion = componentDocument.field(COMPONENT_VERSION_FIELD);
+                    componentDocument.field(COMPONENT_VERSION_KEYS_FIELD, VersionScheme.toKeys(componentVersion));
+                }
+                document.field(COMPONENTS_FIELD, componentDocuments);
+                document.save();
+                updated++;
+            }
+            type.createProperty(ATTRIBUTE_ENTRIES_FIELD, OType.EMBEDDEDLIST, OType.STRING).setMandatory(true)
+                    .setNotNull(true);
+            type.createIndex(ATTRIBUTE_ENTRIES_INDEX, INDEX_TYPE.NOTUNIQUE, ATTRIBUTE_ENTRIES_FIELD);
+            log.info("Index of creation time of tags is created, and attribute entries and version keys of "
+                    + "components of {} tags are populated.", updated);
+        }
+        type.setCustom(SCHEMA_VERSION_ATTRIBUTE, String.valueOf(SCHEMA_VERSION));
     }
 
     @Override
@@ -73,8 +168,7 @@ public class TagEntityAdapter extends IterableEntityAdapter<TagEntity> {
         tag.setLastUpdated(oDocument.field(LAST_UPDATED_FIELD));
         tag.setAttributes(oDocument.field(ATTRIBUTES_FIELD));
 
-        List<ODocument> componentDocuments = oDocument.field(COMPONENTS_FIELD);
-        List<AssociatedComponent> components = componentDocuments.stream()
+        List<AssociatedComponent> components = componentDocuments(oDocument).stream()
                 .map(TagEntityAdapter::toComponent)
                 .collect(Collectors.toList());
         tag.setComponents(components);
@@ -86,21 +180,68 @@ public class TagEntityAdapter extends IterableEntityAdapter<TagEntity> {
         oDocument.field(FIRST_CREATED_FIELD, tag.getFirstCreated());
         oDocument.field(LAST_UPDATED_FIELD, tag.getLastUpdated());
         oDocument.field(ATTRIBUTES_FIELD, tag.getAttributes());
+        oDocument.field(ATTRIBUTE_ENTRIES_FIELD, attributeEntries(tag.getAttributes()));
         List<ODocument> componentDocuments = tag.getComponents().stream()
                 .map(TagEntityAdapter::toDocument)
                 .collect(Collectors.toList());
         oDocument.field(COMPONENTS_FIELD, componentDocuments);
     }
 
+    /**
+     * Writes changes of given attached tag into its document. Unlike {@link #editEntity}, which rewrites all fields,
+     * embedded documents of components are kept as they are except removed and added ones.
+     *
+     * @param tx connection to the tag database
+     * @param tag attached tag, which its attributes and last update time are written
+     * @param removedComponents components to remove from document, matched by coordinates and version
+     * @param addedComponents components to add to document
+     * @return written document
+     */
+    public ODocument patchEntity(ODatabaseDocumentTx tx, TagEntity tag, Set<AssociatedComponent> removedComponents,
+            Collection<AssociatedComponent> addedComponents) {
+        ODocument document = AttachedEntityHelper.document(tag);
+        document.field(ATTRIBUTES_FIELD, tag.getAttributes());
+        document.field(ATTRIBUTE_ENTRIES_FIELD, attributeEntries(tag.getAttributes()));
+        document.field(LAST_UPDATED_FIELD, tag.getLastUpdated());
+        if (!removedComponents.isEmpty() || !addedComponents.isEmpty()) {
+            List<ODocument> componentDocuments = new ArrayList<>(componentDocuments(document));
+            componentDocuments.removeIf(component -> removedComponents.contains(toComponent(component)));
+            addedComponents.forEach(component -> componentDocuments.add(toDocument(component)));
+            document.field(COMPONENTS_FIELD, componentDocuments);
+        }
+        attachMetadata(tag, document);
+        return tx.save(document);
+    }
+
     private static ODocument toDocument(AssociatedComponent component) {
         ODocument document = new ODocument();
         document.field(COMPONENT_REPOSITORY_FIELD, component.getRepository());
         document.field(COMPONENT_GROUP_FIELD, component.getGroup());
         document.field(COMPONENT_NAME_FIELD, component.getName());
         document.field(COMPONENT_VERSION_FIELD, component.getVersion());
+        document.field(COMPONENT_VERSION_KEYS_FIELD, VersionScheme.toKeys(component.getVersion()));
         return document;
     }
 
+    private static List<String> attributeEntries(Map<String, String> attributes) {
+        List<String> entries = new ArrayList<>();
+        for (Entry<String, String> attribute : attributes.entrySet()) {
+            entries.add(attribute.getKey() + ENTRY_VALUE_SEPARATOR + attribute.getValue());
+            String valueKey = ComponentSearchCriterion.Version.toKey(attribute.getValue());
+            if (valueKey != null) {
+                entries.add(attribute.getKey() + ENTRY_VALUE_KEY_SEPARATOR + valueKey);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @return embedded documents of components associated with given tag document
+     */
+    static List<ODocument> componentDocuments(ODocument tag) {
+        return tag.field(COMPONENTS_FIELD);
+    }
+
     private static AssociatedComponent toComponent(ODocument document) {
         AssociatedComponent component = new AssociatedComponent();
         component.setRepository(document.field(COMPONENT_REPOSITORY_FIELD));
@@ -119,6 +260,84 @@ public class TagEntityAdapter extends IterableEntityAdapter<TagEntity> {
         return Optional.of(transformEntity(identifiable.getRecord()));
     }
 
+    /**
+     * @param names names of tags to find
+     * @return names of tags among given names which exist
+     */
+    public Set<String> findExistingNames(ODatabaseDocumentTx tx, Collection<String> names) {
+        String query = "select " + NAME_FIELD + " from " + DB_CLASS + " where " + NAME_FIELD + " in ?";
+        List<ODocument> documents = tx.query(new OSQLSynchQuery<>(query), names);
+        return documents.stream().map(document -> document.<String>field(NAME_FIELD)).collect(Collectors.toSet());
+    }
+
+    /**
+     * Finds tags which match all of given attribute predicates. Each predicate is evaluated as a range scan of the
+     * index of attribute entries, so only entries of matching tags are read.
+     *
+     * @param tx connection to the tag database
+     * @param predicates predicates to match, should not be empty
+     * @return identities of found tags
+     */
+    public Set<ORID> findTags(ODatabaseDocumentTx tx, Collection<AttributePredicate> predicates) {
+        Set<ORID> result = null;
+        for (AttributePredicate predicate : predicates) {
+            Set<ORID> found = findTags(tx, predicate);
+            if (result == null) {
+                result = found;
+            } else {
+                result.retainAll(found);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new HashSet<>() : result;
+    }
+
+    private Set<ORID> findTags(ODatabaseDocumentTx tx, AttributePredicate predicate) {
+        String valuePrefix = predicate.getKey() + ENTRY_VALUE_SEPARATOR;
+        String valueKeyPrefix = predicate.getKey() + ENTRY_VALUE_KEY_SEPARATOR;
+        String valueKey = valueKeyPrefix + predicate.getValueKey();
+        switch (predicate.getOperator()) {
+            case EQ:
+                String entry = valuePrefix + predicate.getValue();
+                return findByEntryRange(tx, entry, true, entry, true);
+            case PREFIX:
+                String prefix = valuePrefix + predicate.getValue();
+                return findByEntryRange(tx, prefix, true, prefix + MAX_CHAR, true);
+            case EXISTS:
+                return findByEntryRange(tx, valuePrefix, true, valuePrefix + MAX_CHAR, true);
+            case GT:
+                return findByEntryRange(tx, valueKey, false, valueKeyPrefix + MAX_CHAR, true);
+            case GTE:
+                return findByEntryRange(tx, valueKey, true, valueKeyPrefix + MAX_CHAR, true);
+            case LT:
+                return findByEntryRange(tx, valueKeyPrefix, true, valueKey, false);
+            case LTE:
+                return findByEntryRange(tx, valueKeyPrefix, true, valueKey, true);
+            default:
+                throw new AssertionError("Unsupported attribute operator: " + predicate.getOperator());
+        }
+    }
+
+    /**
+     * Index queries evaluate ranges as inclusive, so entries equal to exclusive bounds are skipped here.
+     */
+    private Set<ORID> findByEntryRange(ODatabaseDocumentTx tx, String lower, boolean lowerInclusive, String upper,
+            boolean upperInclusive) {
+        List<ODocument> documents = tx.query(new OSQLSynchQuery<>(FIND_BY_ATTRIBUTE_ENTRY_RANGE_QUERY), lower, upper);
+        Set<ORID> tags = new HashSet<>();
+        for (ODocument document : documents) {
+            String key = document.field("key");
+            if ((lowerInclusive || !key.equals(lower)) && (upperInclusive || !key.equals(upper))) {
+                OIdentifiable tag = document.rawField("rid");
+                tags.add(tag.getIdentity());
+            }
+        }
+        log.debug("{} tags found for attribute entries between {} and {}", tags.size(), lower, upper);
+        return tags;
+    }
+
     /**
      * Searches for tags with given attributes.
      *
@@ -127,46 +346,408 @@ public class TagEntityAdapter extends IterableEntityAdapter<TagEntity> {
      * @return found tag entities
      */
     public Iterable<TagEntity> search(ODatabaseDocumentTx tx, Map<String, String> attributes) {
+        return search(tx, new TagQuery(attributes, Collections.emptyList()), null);
+    }
+
+    /**
+     * Searches for tags matching given query among given tags. Component criteria and attribute predicates of query
+     * are not evaluated, they should be already resolved into given tags using {@link TagComponentIndex} and
+     * {@link #findTags(ODatabaseDocumentTx, Collection)}. Time criteria are evaluated as ranges of indexes of last
+     * update and creation time, so only tags in the range are read.
+     *
+     * @param tx connection to use for searching
+     * @param query criteria to match
+     * @param tagIds identities of tags to search among, or null to search among all tags
+     * @return found tag entities
+     */
+    public Iterable<TagEntity> search(ODatabaseDocumentTx tx, TagQuery query, @Nullable Collection<ORID> tagIds) {
+        return transform(query(tx, searchPredicates(tx, query, tagIds), LAST_UPDATED_FIELD, null, ALL_FIELDS));
+    }
+
+    /**
+     * Searches for tags matching given query among given tags, and reads only given fields of them. Other fields of
+     * returned tags are left null, and unlike entities, embedded documents of components are not read unless they are
+     * selected.
+     *
+     * @param tx connection to use for searching
+     * @param query criteria to match, except component criteria and attribute predicates
+     * @param tagIds identities of tags to search among, or null to search among all tags
+     * @param fields fields of tags to read
+     * @return found tags
+     */
+    public List<Tag> search(ODatabaseDocumentTx tx, TagQuery query, @Nullable Collection<ORID> tagIds,
+            Set<TagField> fields) {
+        List<ODocument> documents =
+                query(tx, searchPredicates(tx, query, tagIds), LAST_UPDATED_FIELD, null, projection(fields));
+        return documents.stream().map(document -> toTag(document, fields)).collect(Collectors.toList());
+    }
+
+    /**
+     * Searches for a page of tags matching given query among given tags. Tags are ordered by last update time
+     * descending, and tags updated at the same time are ordered by identity descending. Each page is fetched using the
+     * index of last update time, so fetching a page costs the same regardless of its position.
+     *
+     * @param tx connection to use for searching
+     * @param query criteria to match, except component criteria and attribute predicates
+     * @param tagIds identities of tags to search among, or null to search among all tags
+     * @param after position of the last tag of previous page, or null to fetch the first page
+     * @param limit maximum number of tags in page
+     * @return found page of tag entities
+     */
+    public ResultPage<TagEntity> search(ODatabaseDocumentTx tx, TagQuery query, @Nullable Collection<ORID> tagIds,
+            @Nullable ContinuationToken after, int limit) {
+        return searchPage(tx, searchPredicates(tx, query, tagIds), after, limit, ALL_FIELDS).map(this::transformEntity);
+    }
+
+    /**
+     * Same as {@link #search(ODatabaseDocumentTx, TagQuery, Collection, ContinuationToken, int)}, but reads only given
+     * fields of tags like {@link #search(ODatabaseDocumentTx, TagQuery, Collection, Set)}.
+     *
+     * @return found page of tags
+     */
+    public ResultPage<Tag> search(ODatabaseDocumentTx tx, TagQuery query, @Nullable Collection<ORID> tagIds,
+            @Nullable ContinuationToken after, int limit, Set<TagField> fields) {
+        return searchPage(tx, searchPredicates(tx, query, tagIds), after, limit, projection(fields))
+                .map(document -> toTag(document, fields));
+    }
+
+    /**
+     * Reads a page of all tags ordered by identity ascending. Unlike last update time, identity of a tag never
+     * changes, so paging by identity does not skip tags which are updated between pages.
+     *
+     * @param tx connection to use for reading
+     * @param after identity of the last tag of previous page, or null to read the first page
+     * @param limit maximum number of tags in page
+     * @return tag entities of page
+     */
+    public List<TagEntity> browse(ODatabaseDocumentTx tx, @Nullable ORID after, int limit) {
+        StringBuilder query = new StringBuilder("select from ").append(DB_CLASS);
+        if (after != null) {
+            query.append(" where ").append(ID_FIELD).append(" > ?");
+        }
+        query.append(" order by ").append(ID_FIELD).append(" limit ").append(limit);
+        Object[] arguments = after == null ? new Object[0] : new Object[] {after};
+        log.debug("Browsing tags with query={} and args={}", query, arguments);
+        List<ODocument> documents = tx.query(new OSQLSynchQuery<>(query.toString()), arguments);
+        return documents.stream().map(this::transformEntity).collect(Collectors.toList());
+    }
+
+    /**
+     * Counts tags matching given query among given tags, without reading them into memory.
+     *
+     * @param tx connection to use for counting
+     * @param query criteria to match, except component criteria and attribute predicates
+     * @param tagIds identities of tags to count among, or null to count among all tags
+     * @return number of matching tags
+     */
+    public long count(ODatabaseDocumentTx tx, TagQuery query, @Nullable Collection<ORID> tagIds) {
+        List<ODocument> documents = aggregate(tx, searchPredicates(tx, query, tagIds), null);
+        return documents.get(0).<Number>field(COUNT_FIELD).longValue();
+    }
+
+    /**
+     * Counts tags matching given query among given tags per value of an attribute, without reading them into memory.
+     * Tags which do not have the attribute are not counted.
+     *
+     * @param tx connection to use for counting
+     * @param query criteria to match, except component criteria and attribute predicates
+     * @param tagIds identities of tags to count among, or null to count among all tags
+     * @param key key of attribute to group tags by
+     * @return number of matching tags by value of attribute, ordered by number of tags descending
+     * @throws IllegalArgumentException if key contains a backslash or both single and double quotes
+     */
+    public Map<String, Long> count(ODatabaseDocumentTx tx, TagQuery query, @Nullable Collection<ORID> tagIds,
+            String key) {
+        List<QueryPredicate> predicates = searchPredicates(tx, query, tagIds);
+        predicates.add(new QueryPredicate(ATTRIBUTES_FIELD, "containsKey", key));
+        Map<String, Long> groups = new LinkedHashMap<>();
+        for (ODocument document : aggregate(tx, predicates, groupField(key))) {
+            groups.put(document.field(GROUP_VALUE_FIELD), document.<Number>field(COUNT_FIELD).longValue());
+        }
+        return groups;
+    }
+
+    /**
+     * Returns expression of an attribute to project and group by. Escaped characters are not unescaped in projections
+     * and grouping by alias of projection does not group correctly, so key is quoted by a quote character which it
+     * does not contain and the same expression is used for both.
+     */
+    private static String groupField(String key) {
+        char quote = key.indexOf('\'') < 0 ? '\'' : '"';
+        checkArgument(key.indexOf(quote) < 0 && key.indexOf('\\') < 0,
+                "Attribute key to group by should not contain a backslash or both ' and \": %s", key);
+        return ATTRIBUTES_FIELD + '[' + quote + key + quote + ']';
+    }
+
+    private List<ODocument> aggregate(ODatabaseDocumentTx tx, List<QueryPredicate> predicates,
+            @Nullable String groupBy) {
+        StringBuilder query = new StringBuilder("select ");
+        if (groupBy != null) {
+            query.append(groupBy).append(" as ").append(GROUP_VALUE_FIELD).append(", ");
+        }
+        query.append("count(*) as ").append(COUNT_FIELD).append(" from ").append(DB_CLASS);
+        if (!predicates.isEmpty()) {
+            query.append(" where ").append(QueryPredicate.andExpression(predicates));
+        }
+        if (groupBy != null) {
+            query.append(" group by ").append(groupBy).append(" order by ").append(COUNT_FIELD).append(" DESC");
+        }
+        Object[] arguments = predicates.stream().flatMap(predicate -> predicate.getValues().stream()).toArray();
+        log.debug("Counting tags with query={} and args={}", query, arguments);
+        return tx.query(new OSQLSynchQuery<>(query.toString()), arguments);
+    }
+
+    private ResultPage<ODocument> searchPage(ODatabaseDocumentTx tx, List<QueryPredicate> predicates,
+            @Nullable ContinuationToken after, int limit, String projection) {
+        // Identity of projected documents is temporary, so they are ordered by alias of identity of tags
+        String idOrderField = ALL_FIELDS.equals(projection) ? ID_FIELD : PROJECTED_ID_FIELD;
+        List<ODocument> documents = new ArrayList<>();
+        if (after != null && after.getId() != null) {
+            // Previous page ended in the middle of tags updated at the same time
+            List<QueryPredicate> samePredicates = new ArrayList<>(predicates);
+            samePredicates.add(new QueryPredicate(LAST_UPDATED_FIELD, "=", after.getLastUpdated()));
+            samePredicates.add(new QueryPredicate(ID_FIELD, "<", after.getId()));
+            documents.addAll(query(tx, samePredicates, idOrderField, limit, projection));
+            if (documents.size() == limit) {
+                return new ResultPage<>(documents, continuationToken(documents, true));
+            }
+        }
+
+        List<QueryPredicate> olderPredicates = new ArrayList<>(predicates);
+        if (after != null) {
+            olderPredicates.add(new QueryPredicate(LAST_UPDATED_FIELD, "<", after.getLastUpdated()));
+        }
+        int remaining = limit - documents.size();
+        List<ODocument> older = new ArrayList<>(query(tx, olderPredicates, LAST_UPDATED_FIELD, remaining, projection));
+        if (older.size() < remaining) {
+            documents.addAll(older);
+            return new ResultPage<>(documents, null);
+        }
+
+        // Tags updated at the same time as the last one may not be all fetched, so they are left to next page.
+        Date boundary = lastUpdated(older.get(older.size() - 1));
+        older.removeIf(document -> lastUpdated(document).equals(boundary));
+        documents.addAll(older);
+        if (!documents.isEmpty()) {
+            return new ResultPage<>(documents, continuationToken(documents, false));
+        }
+
+        // All of page is updated at the same time, so these tags are paged by identity
+        List<QueryPredicate> boundaryPredicates = new ArrayList<>(predicates);
+        boundaryPredicates.add(new QueryPredicate(LAST_UPDATED_FIELD, "=", boundary));
+        documents.addAll(query(tx, boundaryPredicates, idOrderField, remaining, projection));
+        return new ResultPage<>(documents, continuationToken(documents, true));
+    }
+
+    private static ContinuationToken continuationToken(List<ODocument> documents, boolean withId) {
+        ODocument last = documents.get(documents.size() - 1);
+        return new ContinuationToken(lastUpdated(last), withId ? identity(last) : null);
+    }
+
+    private static Date lastUpdated(ODocument document) {
+        return document.field(LAST_UPDATED_FIELD);
+    }
+
+    /**
+     * @return identity of given tag document, or of the tag which given projected document is read from
+     */
+    private static ORID identity(ODocument document) {
+        if (document.getIdentity().isPersistent()) {
+            return document.getIdentity();
+        }
+        return ((OIdentifiable) document.rawField(PROJECTED_ID_FIELD)).getIdentity();
+    }
+
+    /**
+     * @return projection of a query which selects given fields of tags, in addition to fields needed for paging
+     */
+    private static String projection(Set<TagField> fields) {
+        StringBuilder projection = new StringBuilder(ID_FIELD).append(" as ").append(PROJECTED_ID_FIELD);
+        projection.append(", ").append(LAST_UPDATED_FIELD);
+        fields.stream()
+                .filter(field -> field != TagField.LAST_UPDATED)
+                .forEach(field -> projection.append(", ").append(field.getFieldName()));
+        return projection.toString();
+    }
+
+    private static Tag toTag(ODocument document, Set<TagField> fields) {
+        Tag tag = new Tag();
+        if (fields.contains(TagField.NAME)) {
+            tag.setName(document.field(NAME_FIELD));
+        }
+        if (fields.contains(TagField.ATTRIBUTES)) {
+            tag.setAttributes(document.field(ATTRIBUTES_FIELD));
+        }
+        if (fields.contains(TagField.COMPONENTS)) {
+            tag.setComponents(componentDocuments(document).stream()
+                    .map(TagEntityAdapter::toComponent)
+                    .collect(Collectors.toList()));
+        }
+        if (fields.contains(TagField.FIRST_CREATED)) {
+            tag.setFirstCreated(document.field(FIRST_CREATED_FIELD));
+        }
+        if (fields.contains(TagField.LAST_UPDATED)) {
+            tag.setLastUpdated(lastUpdated(document));
+        }
+        return tag;
+    }
+
+    private List<QueryPredicate> searchPredicates(ODatabaseDocumentTx tx, TagQuery query,
+            @Nullable Collection<ORID> tagIds) {
         List<QueryPredicate> predicates = new ArrayList<>();
-        for (Entry<String, String> entry : attributes.entrySet()) {
-            String field = ATTRIBUTES_FIELD + "['" + entry.getKey() + "']";
-            predicates.add(new QueryPredicate(field, "=", entry.getValue()));
+        for (Entry<String, String> entry : query.getAttributes().entrySet()) {
+            predicates.add(new QueryPredicate(attributeField(entry.getKey()), "=", entry.getValue()));
+        }
+        if (query.getUpdatedAfter() != null) {
+            predicates.add(new QueryPredicate(LAST_UPDATED_FIELD, ">", query.getUpdatedAfter()));
+        }
+        if (query.getUpdatedBefore() != null) {
+            predicates.add(new QueryPredicate(LAST_UPDATED_FIELD, "<", query.getUpdatedBefore()));
+        }
+        if (query.getCreatedAfter() != null) {
+            predicates.add(new QueryPredicate(FIRST_CREATED_FIELD, ">", query.getCreatedAfter()));
         }
+        if (tagIds != null) {
+            predicates.add(new QueryPredicate(ID_FIELD, "in", tagIds));
+        }
+        if (query.getFilter() != null) {
+            List<Object> arguments = new ArrayList<>();
+            String expression = compile(tx, query.getFilter(), arguments);
+            predicates.add(new QueryPredicate(expression, arguments));
+        }
+        return predicates;
+    }
 
-        String query = buildQuery(predicates);
-        Object[] arguments = predicates.stream().map(QueryPredicate::getValue).toArray();
-        log.debug("Searching for tags with query={} and args={}", query, arguments);
-        List<ODocument> documents = tx.query(new OSQLSynchQuery<>(query), arguments);
-        return transform(documents);
+    /**
+     * @return expression of value of attribute with given key, which key is quoted as a string literal
+     */
+    private static String attributeField(String key) {
+        return ATTRIBUTES_FIELD + "['" + key.replace("\\", "\\\\").replace("'", "\\'") + "']";
+    }
+
+    /**
+     * Compiles a filter into a query expression, and appends its arguments to given list. Operands of conjunctions are
+     * ordered so that attribute terms, which are cheaper, are evaluated before component terms. Component terms are
+     * evaluated on embedded documents of components of each tag, while the tag is read. Range terms of attributes are
+     * resolved using index of attribute entries beforehand, as they can not be compared in queries.
+     */
+    private String compile(ODatabaseDocumentTx tx, FilterExpression filter, List<Object> arguments) {
+        if (filter instanceof FilterExpression.Or) {
+            return ((FilterExpression.Or) filter).getOperands().stream()
+                    .map(operand -> compile(tx, operand, arguments))
+                    .collect(Collectors.joining(" or ", "(", ")"));
+        }
+        if (filter instanceof FilterExpression.And) {
+            return ((FilterExpression.And) filter).getOperands().stream()
+                    .sorted(Comparator.comparing(operand -> operand instanceof FilterExpression.ComponentTerm))
+                    .map(operand -> compile(tx, operand, arguments))
+                    .collect(Collectors.joining(" and ", "(", ")"));
+        }
+        if (filter instanceof FilterExpression.Not) {
+            return "not " + compile(tx, ((FilterExpression.Not) filter).getOperand(), arguments);
+        }
+        if (filter instanceof FilterExpression.AttributeTerm) {
+            return compile(tx, ((FilterExpression.AttributeTerm) filter).getPredicate(), arguments);
+        }
+        if (filter instanceof FilterExpression.ComponentTerm) {
+            return compile(((FilterExpression.ComponentTerm) filter).getCriterion(), arguments);
+        }
+        throw new AssertionError("Unsupported filter: " + filter);
+    }
+
+    private String compile(ODatabaseDocumentTx tx, AttributePredicate predicate, List<Object> arguments) {
+        String field = attributeField(predicate.getKey());
+        switch (predicate.getOperator()) {
+            case EQ:
+                arguments.add(predicate.getValue());
+                return "(" + field + " = ?)";
+            case PREFIX:
+                arguments.add(predicate.getValue());
+                arguments.add(predicate.getValue() + MAX_CHAR);
+                return "((" + field + " >= ?) and (" + field + " <= ?))";
+            case EXISTS:
+                arguments.add(predicate.getKey());
+                return "(" + ATTRIBUTES_FIELD + " containsKey ?)";
+            default:
+                arguments.add(findTags(tx, predicate));
+                return "(" + ID_FIELD + " in ?)";
+        }
+    }
+
+    /**
+     * Conditions inside contains operator are parenthesized, otherwise only the first one is evaluated. Range operators
+     * compare version keys of the scheme of repository of criterion.
+     */
+    private String compile(ComponentSearchCriterion criterion, List<Object> arguments) {
+        StringBuilder expression = new StringBuilder("(").append(COMPONENTS_FIELD).append(" contains (");
+        expression.append('(').append(COMPONENT_REPOSITORY_FIELD).append(" = ?)");
+        arguments.add(criterion.getRepository());
+        if (criterion.getGroup() == null) {
+            expression.append(" and (").append(COMPONENT_GROUP_FIELD).append(" is null)");
+        } else {
+            expression.append(" and (").append(COMPONENT_GROUP_FIELD).append(" = ?)");
+            arguments.add(criterion.getGroup());
+        }
+        expression.append(" and (").append(COMPONENT_NAME_FIELD).append(" = ?)");
+        arguments.add(criterion.getName());
+        ComponentSearchCriterion.Operator operator = criterion.getVersionOperator();
+        if (operator == ComponentSearchCriterion.Operator.EQ) {
+            expression.append(" and (").append(COMPONENT_VERSION_FIELD).append(" = ?)");
+            arguments.add(criterion.getVersionValue());
+        } else if (operator != null) {
+            // Range operators are not applicable to unsupported versions, which have no version key
+            VersionScheme scheme = versionSchemes.forRepository(criterion.getRepository());
+            expression.append(" and (").append(COMPONENT_VERSION_KEYS_FIELD).append("['").append(scheme.getKeyName())
+                    .append("'] ").append(operator.getQueryOperator()).append(" ?)");
+            arguments.add(criterion.getVersionKey(scheme));
+        }
+        return expression.append("))").toString();
     }
 
+    private List<ODocument> query(ODatabaseDocumentTx tx, List<QueryPredicate> predicates, String orderField,
+            @Nullable Integer limit, String projection) {
+        String query = buildQuery(predicates, orderField, limit, projection);
+        Object[] arguments = predicates.stream().flatMap(predicate -> predicate.getValues().stream()).toArray();
+        log.debug("Searching for tags with query={} and args={}", query, arguments);
+        return tx.query(new OSQLSynchQuery<>(query), arguments);
+    }
 
-    private static String buildQuery(List<QueryPredicate> predicates) {
-        StringBuilder query = new StringBuilder("select * from ").append(DB_CLASS);
+    private static String buildQuery(List<QueryPredicate> predicates, String orderField, @Nullable Integer limit,
+            String projection) {
+        StringBuilder query = new StringBuilder("select ").append(projection).append(" from ").append(DB_CLASS);
         if (!predicates.isEmpty()) {
             query.append(" where ").append(QueryPredicate.andExpression(predicates));
         }
-        query.append(" order by ").append(LAST_UPDATED_FIELD).append(" DESC");
+        query.append(" order by ").append(orderField).append(" DESC");
+        if (limit != null) {
+            query.append(" limit ").append(limit);
+        }
         return query.toString();
     }
 
     private static class QueryPredicate {
-        private final String field;
-        private final String operator;
-        private final Object value;
+        private final String expression;
+        private final List<Object> values;
 
         public QueryPredicate(String field, String operator, Object value) {
-            this.field = field;
-            this.operator = operator;
-            this.value = value;
+            this(field + ' ' + operator + " ?", Collections.singletonList(value));
+        }
+
+        /**
+         * @param expression query expression, containing a parameter for each value
+         * @param values values of parameters of expression, in order
+         */
+        public QueryPredicate(String expression, List<Object> values) {
+            this.expression = expression;
+            this.values = values;
         }
 
-        public Object getValue() {
-            return value;
+        public List<Object> getValues() {
+            return values;
         }
 
         String toQueryExpression() {
-            return field + ' '+ operator + " ?";
+            return expression;
         }
 
         static String andExpression(List<QueryPredicate> predicates) {
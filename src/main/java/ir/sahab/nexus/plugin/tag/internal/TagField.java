@@ -0,0 +1,55 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fields of tags which can be selected in tag searches. Name of each field is the same in JSON representation of tags
+ * and in database.
+ */
+public enum TagField {
+
+    NAME("name"),
+    ATTRIBUTES("attributes"),
+    COMPONENTS("components"),
+    FIRST_CREATED("firstCreated"),
+    LAST_UPDATED("lastUpdated");
+
+    /**
+     * All fields of tags, which are selected when no projection is requested.
+     */
+    public static final Set<TagField> ALL = Collections.unmodifiableSet(EnumSet.allOf(TagField.class));
+
+    private final String fieldName;
+
+    TagField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Parses a comma separated list of field names, e.g. "name,attributes".
+     *
+     * @throws IllegalArgumentException if a field name is unknown or list is empty
+     */
+    public static Set<TagField> parse(String fieldNames) {
+        Set<TagField> fields = EnumSet.noneOf(TagField.class);
+        for (String fieldName : fieldNames.split(",")) {
+            String trimmed = fieldName.trim();
+            TagField field = Arrays.stream(values())
+                    .filter(value -> value.fieldName.equals(trimmed))
+                    .findAny()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown tag field '" + trimmed + "', valid "
+                            + "fields are " + Arrays.stream(values()).map(TagField::getFieldName)
+                            .collect(Collectors.joining(",")) + '.'));
+            fields.add(field);
+        }
+        return fields;
+    }
+}
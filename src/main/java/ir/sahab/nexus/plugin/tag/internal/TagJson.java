@@ -0,0 +1,31 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Reads and writes tags as JSON in streaming manner, for APIs which may handle a large number of tags. Dates are
+ * formatted the same as other APIs.
+ */
+final class TagJson {
+
+    static final ObjectMapper MAPPER = new ObjectMapper()
+            .setDateFormat(new StdDateFormat().withColonInTimeZone(false))
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private TagJson() {
+    }
+
+    /**
+     * Lazily reads tags from a JSON array or a sequence of JSON objects (e.g. newline delimited JSON). Note that
+     * returned iterator throws runtime exceptions if input is invalid.
+     */
+    static Iterator<Tag> readTags(InputStream input) throws IOException {
+        return MAPPER.readerFor(Tag.class).readValues(input);
+    }
+}
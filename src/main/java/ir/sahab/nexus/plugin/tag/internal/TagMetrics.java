@@ -0,0 +1,94 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.util.function.Supplier;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.WebApplicationException;
+
+/**
+ * Records timings and counts of tag operations in Nexus metrics, so they are exposed by the metrics endpoint of Nexus
+ * beside other metrics. Metrics are named after {@link TagStore} and {@link TagComponentIndex}, e.g.
+ * {@code ir.sahab.nexus.plugin.tag.internal.TagStore.search} is timer of searches.
+ */
+@Named
+@Singleton
+public class TagMetrics {
+
+    private final MetricRegistry metricRegistry;
+
+    @Inject
+    public TagMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Runs given operation of {@link TagStore} and records its duration. Failures are counted separately, except
+     * client errors like a missing tag or a conflict.
+     *
+     * @param operation name of operation, e.g. "search"
+     */
+    public <T> T time(String operation, Supplier<T> action) {
+        Timer.Context context = metricRegistry.timer(MetricRegistry.name(TagStore.class, operation)).time();
+        try {
+            return action.get();
+        } catch (WebApplicationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            metricRegistry.counter(MetricRegistry.name(TagStore.class, operation, "failures")).inc();
+            throw e;
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * Same as {@link #time(String, Supplier)} for operations without result.
+     */
+    public void time(String operation, Runnable action) {
+        time(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records a retry of a transaction of given operation, which is failed due to concurrent changes.
+     */
+    public void retried(String operation) {
+        metricRegistry.counter(MetricRegistry.name(TagStore.class, operation, "retries")).inc();
+    }
+
+    /**
+     * Records a transaction of given operation which is still failing due to concurrent changes after all retries.
+     */
+    public void conflicted(String operation) {
+        metricRegistry.counter(MetricRegistry.name(TagStore.class, operation, "conflicts")).inc();
+    }
+
+    /**
+     * Records number of tags returned by a search, either served from cache or database.
+     */
+    public void searched(int returned) {
+        metricRegistry.histogram(MetricRegistry.name(TagStore.class, "search", "returned")).update(returned);
+    }
+
+    /**
+     * Records number of index records scanned for a component criterion and number of tags matched by them.
+     */
+    public void componentFiltered(int scanned, int matched) {
+        metricRegistry.histogram(MetricRegistry.name(TagComponentIndex.class, "scanned")).update(scanned);
+        metricRegistry.histogram(MetricRegistry.name(TagComponentIndex.class, "matched")).update(matched);
+    }
+
+    /**
+     * Records number of tags created and skipped by an imported chunk, or number of tags of a failed chunk.
+     */
+    public void imported(int created, int skipped, int failed) {
+        metricRegistry.counter(MetricRegistry.name(TagStore.class, "importTags", "created")).inc(created);
+        metricRegistry.counter(MetricRegistry.name(TagStore.class, "importTags", "skipped")).inc(skipped);
+        metricRegistry.counter(MetricRegistry.name(TagStore.class, "importTags", "failed")).inc(failed);
+    }
+}
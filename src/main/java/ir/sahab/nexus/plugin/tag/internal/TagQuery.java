@@ -0,0 +1,176 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+
+/**
+ * Criteria of a tag search, which found tags should match all of them. Queries are immutable and can be used as
+ * cache keys, so queries which differ only in order of attributes or component criteria are equal.
+ */
+public class TagQuery {
+
+    private final Map<String, String> attributes;
+    private final List<AttributePredicate> attributePredicates;
+    private final List<ComponentSearchCriterion> componentCriteria;
+    private final Date updatedAfter;
+    private final Date updatedBefore;
+    private final Date createdAfter;
+    private final FilterExpression filter;
+
+    public TagQuery(Map<String, String> attributes, List<ComponentSearchCriterion> componentCriteria) {
+        this(attributes, Collections.emptyList(), componentCriteria, null, null, null);
+    }
+
+    public TagQuery(Map<String, String> attributes, List<AttributePredicate> attributePredicates,
+            List<ComponentSearchCriterion> componentCriteria, @Nullable Date updatedAfter,
+            @Nullable Date updatedBefore, @Nullable Date createdAfter) {
+        this(attributes, attributePredicates, componentCriteria, updatedAfter, updatedBefore, createdAfter, null);
+    }
+
+    public TagQuery(Map<String, String> attributes, List<AttributePredicate> attributePredicates,
+            List<ComponentSearchCriterion> componentCriteria, @Nullable Date updatedAfter,
+            @Nullable Date updatedBefore, @Nullable Date createdAfter, @Nullable FilterExpression filter) {
+        this.attributes = Collections.unmodifiableMap(attributes);
+        this.attributePredicates = Collections.unmodifiableList(attributePredicates);
+        this.componentCriteria = Collections.unmodifiableList(componentCriteria);
+        this.updatedAfter = updatedAfter;
+        this.updatedBefore = updatedBefore;
+        this.createdAfter = createdAfter;
+        this.filter = filter;
+    }
+
+    /**
+     * @return a query which matches all tags
+     */
+    public static TagQuery all() {
+        return new TagQuery(Collections.emptyMap(), Collections.emptyList());
+    }
+
+    /**
+     * @return attribute key value pairs which tags should have
+     */
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return predicates on attributes other than plain equality, which tags should match all of them
+     */
+    public List<AttributePredicate> getAttributePredicates() {
+        return attributePredicates;
+    }
+
+    /**
+     * @return criteria which each should be matched by at least one associated component of tags
+     */
+    public List<ComponentSearchCriterion> getComponentCriteria() {
+        return componentCriteria;
+    }
+
+    /**
+     * @return time which tags should be last updated after it, or null if it's not restricted
+     */
+    @Nullable
+    public Date getUpdatedAfter() {
+        return updatedAfter;
+    }
+
+    /**
+     * @return time which tags should be last updated before it, or null if it's not restricted
+     */
+    @Nullable
+    public Date getUpdatedBefore() {
+        return updatedBefore;
+    }
+
+    /**
+     * @return time which tags should be created after it, or null if it's not restricted
+     */
+    @Nullable
+    public Date getCreatedAfter() {
+        return createdAfter;
+    }
+
+    /**
+     * @return filter which tags should match in addition to other criteria, or null if there is no such filter
+     */
+    @Nullable
+    public FilterExpression getFilter() {
+        return filter;
+    }
+
+    /**
+     * Returns a query which matches tags matching both this query and given filter. Attribute predicates and component
+     * criteria which filter is a conjunction of are merged into criteria of query, so they are evaluated using indexes
+     * before the filter. Only the rest of filter, e.g. its disjunctions and negations, is kept as filter of query.
+     */
+    public TagQuery withFilter(FilterExpression filter) {
+        Map<String, String> mergedAttributes = new HashMap<>(attributes);
+        List<AttributePredicate> mergedPredicates = new ArrayList<>(attributePredicates);
+        List<ComponentSearchCriterion> mergedCriteria = new ArrayList<>(componentCriteria);
+        List<FilterExpression> residual = new ArrayList<>();
+        if (this.filter != null) {
+            residual.add(this.filter);
+        }
+        for (FilterExpression conjunct : filter.conjuncts()) {
+            if (conjunct instanceof FilterExpression.ComponentTerm) {
+                mergedCriteria.add(((FilterExpression.ComponentTerm) conjunct).getCriterion());
+            } else if (conjunct instanceof FilterExpression.AttributeTerm) {
+                AttributePredicate predicate = ((FilterExpression.AttributeTerm) conjunct).getPredicate();
+                if (predicate.getOperator() != AttributePredicate.Operator.EQ) {
+                    mergedPredicates.add(predicate);
+                } else if (mergedAttributes.putIfAbsent(predicate.getKey(), predicate.getValue()) != null
+                        && !mergedAttributes.get(predicate.getKey()).equals(predicate.getValue())) {
+                    // Another value of the same attribute is already required
+                    residual.add(conjunct);
+                }
+            } else {
+                residual.add(conjunct);
+            }
+        }
+        return new TagQuery(mergedAttributes, mergedPredicates, mergedCriteria, updatedAfter, updatedBefore,
+                createdAfter, residual.isEmpty() ? null : FilterExpression.and(residual));
+    }
+
+    private Set<String> componentCriteriaStrings() {
+        return componentCriteria.stream().map(ComponentSearchCriterion::toString).collect(Collectors.toSet());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TagQuery that = (TagQuery) o;
+        return attributes.equals(that.attributes)
+                && new HashSet<>(attributePredicates).equals(new HashSet<>(that.attributePredicates))
+                && componentCriteriaStrings().equals(that.componentCriteriaStrings())
+                && Objects.equals(updatedAfter, that.updatedAfter) && Objects.equals(updatedBefore, that.updatedBefore)
+                && Objects.equals(createdAfter, that.createdAfter) && Objects.equals(filter, that.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(attributes, new HashSet<>(attributePredicates), componentCriteriaStrings(), updatedAfter,
+                updatedBefore, createdAfter, filter);
+    }
+
+    @Override
+    public String toString() {
+        return "TagQuery{attributes=" + attributes + ", attributePredicates=" + attributePredicates
+                + ", componentCriteria=" + componentCriteria + ", updatedAfter=" + updatedAfter + ", updatedBefore="
+                + updatedBefore + ", createdAfter=" + createdAfter + ", filter=" + filter + '}';
+    }
+}
@@ -2,16 +2,33 @@ package ir.sahab.nexus.plugin.tag.internal;
 
 import static org.sonatype.nexus.rest.APIConstants.V1_API_PREFIX;
 
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportJobStatus;
 import ir.sahab.nexus.plugin.tag.internal.dto.ImportResult;
 import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange;
 import ir.sahab.nexus.plugin.tag.internal.dto.TagCloneRequest;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagCount;
 import ir.sahab.nexus.plugin.tag.internal.dto.TagDefinition;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagPatch;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult.Outcome;
 import ir.sahab.nexus.plugin.tag.internal.exception.ErrorResponse;
-import java.util.Collections;
+import ir.sahab.nexus.plugin.tag.internal.validation.ComponentExistenceChecker;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -22,16 +39,26 @@ import javax.validation.Validator;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.rest.Resource;
 
@@ -43,12 +70,49 @@ import org.sonatype.nexus.rest.Resource;
 @Path(V1_API_PREFIX)
 public class TagRestResource extends ComponentSupport implements Resource, TagRestResourceDoc {
 
+    /**
+     * Header of tag list response which holds token of the next page, if there is any.
+     */
+    public static final String CONTINUATION_TOKEN_HEADER = "X-Continuation-Token";
+
+    /**
+     * Media type of newline delimited JSON, in which each line contains a tag.
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private static final MediaType APPLICATION_NDJSON_TYPE = MediaType.valueOf(APPLICATION_NDJSON);
+
+    /**
+     * Header of tag changes response which holds sequence number of the last committed change.
+     */
+    public static final String LAST_SEQUENCE_HEADER = "X-Last-Sequence";
+
+    /**
+     * Maximum number of tag changes returned at once.
+     */
+    private static final int MAX_CHANGES_LIMIT = 1000;
+
+    /**
+     * Maximum time to wait for tag changes, which should be less than timeout of clients and proxies.
+     */
+    private static final int MAX_CHANGES_WAIT_SECONDS = 60;
+
+    /**
+     * Number of tags fetched from database at once when streaming tags.
+     */
+    private static final int STREAM_PAGE_SIZE = 500;
+
     private final TagStore tagStore;
+    private final ImportJobManager importJobManager;
+    private final ComponentExistenceChecker componentExistenceChecker;
     private final Validator validator;
 
     @Inject
-    public TagRestResource(TagStore tagStore, Validator validator) {
+    public TagRestResource(TagStore tagStore, ImportJobManager importJobManager,
+            ComponentExistenceChecker componentExistenceChecker, Validator validator) {
         this.tagStore = tagStore;
+        this.importJobManager = importJobManager;
+        this.componentExistenceChecker = componentExistenceChecker;
         this.validator = validator;
     }
 
@@ -56,52 +120,234 @@ public class TagRestResource extends ComponentSupport implements Resource, TagRe
     @Path("/tags/{name}")
     @Produces(MediaType.APPLICATION_JSON)
     @Override
-    public Tag getByName(@PathParam("name") String name) {
-        return tagStore.getByName(name);
+    public Response getByName(@PathParam("name") String name) {
+        return withEntityTag(tagStore.getByName(name));
     }
 
     @GET
     @Path("/tags")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Override
+    public Response list(@QueryParam("attribute") List<String> attributes,
+            @QueryParam("attributeMatch") List<String> attributeMatches,
+            @QueryParam("hasAttribute") List<String> hasAttributes,
+            @QueryParam("associatedComponent") List<String> components,
+            @QueryParam("filter") String filter,
+            @QueryParam("limit") Integer limit,
+            @QueryParam("continuationToken") String continuationToken,
+            @QueryParam("stream") boolean stream,
+            @QueryParam("fields") String fields,
+            @QueryParam("updatedAfter") String updatedAfter,
+            @QueryParam("updatedBefore") String updatedBefore,
+            @QueryParam("createdAfter") String createdAfter,
+            @Context HttpHeaders headers) {
+        TagQuery query = decodeQuery(attributes, attributeMatches, hasAttributes, components, filter, updatedAfter,
+                updatedBefore, createdAfter);
+        Set<TagField> fieldSet;
+        try {
+            fieldSet = fields == null ? TagField.ALL : TagField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw badRequest(e.getMessage());
+        }
+        boolean newlineDelimited = acceptsNdjson(headers);
+        if (stream || newlineDelimited) {
+            if (limit != null) {
+                throw badRequest("Limit is not supported when streaming.");
+            }
+            log.info("Streaming tag search for {}", query);
+            return streamingResponse(
+                    tagStore.stream(query, decodeContinuationToken(continuationToken), STREAM_PAGE_SIZE, fieldSet),
+                    newlineDelimited);
+        }
+        if (limit == null && continuationToken == null) {
+            List<Tag> tags = tagStore.search(query, fieldSet);
+            log.info("Tag search for {}:{}", query, tags);
+            return Response.ok(tags).build();
+        }
+
+        if (limit == null || limit < 1) {
+            throw badRequest("Limit should be a positive number when paging.");
+        }
+        ContinuationToken after = decodeContinuationToken(continuationToken);
+        ResultPage<Tag> page = tagStore.search(query, after, limit, fieldSet);
+        log.info("Tag search for {}, after={}, limit={}:{}", query, after, limit, page.getItems());
+        ResponseBuilder response = Response.ok(page.getItems());
+        if (page.getNext() != null) {
+            response.header(CONTINUATION_TOKEN_HEADER, page.getNext().encode());
+        }
+        return response.build();
+    }
+
+    @GET
+    @Path("/tag-counts")
     @Produces(MediaType.APPLICATION_JSON)
     @Override
-    public List<Tag> list(@QueryParam("attribute") List<String> attributes,
-            @QueryParam("associatedComponent") List<String> components) {
-        Map<String, String> attributeMap = decodeAttributes(attributes);
-        List<ComponentSearchCriterion> componentCriteria;
+    public TagCount count(@QueryParam("attribute") List<String> attributes,
+            @QueryParam("attributeMatch") List<String> attributeMatches,
+            @QueryParam("hasAttribute") List<String> hasAttributes,
+            @QueryParam("associatedComponent") List<String> components,
+            @QueryParam("filter") String filter,
+            @QueryParam("updatedAfter") String updatedAfter,
+            @QueryParam("updatedBefore") String updatedBefore,
+            @QueryParam("createdAfter") String createdAfter,
+            @QueryParam("groupBy") String groupBy) {
+        TagQuery query = decodeQuery(attributes, attributeMatches, hasAttributes, components, filter, updatedAfter,
+                updatedBefore, createdAfter);
+        if (groupBy != null && groupBy.trim().isEmpty()) {
+            throw badRequest("Attribute key to group by should not be empty.");
+        }
+        TagCount count;
         try {
-            componentCriteria = components.stream().map(ComponentSearchCriterion::parse).collect(Collectors.toList());
+            count = tagStore.count(query, groupBy == null ? null : groupBy.trim());
         } catch (IllegalArgumentException e) {
-            Response response = Response.status(Status.BAD_REQUEST).entity(ErrorResponse.of(e.getMessage())).build();
-            throw new BadRequestException(response);
+            throw badRequest(e.getMessage());
+        }
+        log.info("Tag count for {}, groupBy={}: {}", query, groupBy, count);
+        return count;
+    }
+
+    @GET
+    @Path("/export-tags")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Override
+    public Response export(@Context HttpHeaders headers) {
+        log.info("Exporting all tags.");
+        return streamingResponse(tagStore.export(STREAM_PAGE_SIZE), acceptsNdjson(headers));
+    }
+
+    @GET
+    @Path("/tag-changes")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Override
+    public Response changes(@QueryParam("since") @DefaultValue("0") long since,
+            @QueryParam("limit") @DefaultValue("100") int limit,
+            @QueryParam("waitSeconds") @DefaultValue("0") int waitSeconds) {
+        if (since < 0) {
+            throw badRequest("Sequence number should not be negative.");
+        }
+        if (limit < 1 || limit > MAX_CHANGES_LIMIT) {
+            throw badRequest("Limit should be between 1 and " + MAX_CHANGES_LIMIT + '.');
+        }
+        if (waitSeconds < 0 || waitSeconds > MAX_CHANGES_WAIT_SECONDS) {
+            throw badRequest("Wait seconds should be between 0 and " + MAX_CHANGES_WAIT_SECONDS + '.');
+        }
+        long lastSequence = tagStore.lastChangeSequence();
+        List<TagChange> changes = tagStore.changes(since, limit, TimeUnit.SECONDS.toMillis(waitSeconds));
+        log.debug("{} tag changes since {} are read.", changes.size(), since);
+        if (!changes.isEmpty()) {
+            lastSequence = Math.max(lastSequence, changes.get(changes.size() - 1).getSequence());
+        }
+        return Response.ok(changes).header(LAST_SEQUENCE_HEADER, lastSequence).build();
+    }
+
+    private static Response streamingResponse(Iterator<List<Tag>> pages, boolean newlineDelimited) {
+        StreamingOutput output = new TagStreamingOutput(pages, newlineDelimited);
+        return Response.ok(output, newlineDelimited ? APPLICATION_NDJSON_TYPE : MediaType.APPLICATION_JSON_TYPE)
+                .build();
+    }
+
+    /**
+     * @return true if client explicitly accepts newline delimited JSON
+     */
+    private static boolean acceptsNdjson(HttpHeaders headers) {
+        return headers.getAcceptableMediaTypes().stream()
+                .anyMatch(type -> !type.isWildcardSubtype() && type.isCompatible(APPLICATION_NDJSON_TYPE));
+    }
+
+    private static ContinuationToken decodeContinuationToken(String continuationToken) {
+        if (continuationToken == null) {
+            return null;
+        }
+        try {
+            return ContinuationToken.decode(continuationToken);
+        } catch (IllegalArgumentException e) {
+            throw badRequest(e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes a date query parameter, in the same format as dates of tags (e.g. 2020-10-22T06:26:27.236+0000) or as
+     * milliseconds since epoch.
+     *
+     * @return decoded date, or null if parameter is not present
+     * @throws BadRequestException if date is not in a valid format
+     */
+    private static Date decodeDate(String parameter, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new StdDateFormat().parse(value);
+        } catch (ParseException e) {
+            throw badRequest("Invalid date of " + parameter + ": " + value);
         }
-        List<Tag> tags = tagStore.search(attributeMap, componentCriteria);
-        log.info("Tag search for attributes={}, associated components={}:{}", attributes, components, tags);
-        return tags;
     }
 
     /**
      * Decodes query parameter of attributes to an attribute map.
      *
-     * @param attributes list of value pairs of attributes in key:value format
+     * @param attributes list of value pairs of attributes in key:value format, which values are matched exactly
+     * @param attributeMatches list of predicates on attributes in key:expression format
      * @return map of attribute name to search value
      * @throws BadRequestException if key value pair is not in format key:value
      */
-    private Map<String, String> decodeAttributes(List<String> attributes) {
-        if (attributes == null) {
-            return Collections.emptyMap();
-        }
-        Map<String, String> map = new HashMap<>();
-        for (String keyValue : attributes) {
-            String[] splitted = keyValue.split(":", 2);
-            if (splitted.length != 2 || splitted[0].isEmpty()) {
-                Response response = Response.status(Status.BAD_REQUEST)
-                        .entity(ErrorResponse.of("Invalid attribute key value pair: " + keyValue))
-                        .build();
-                throw new BadRequestException(response);
+    private TagQuery decodeQuery(List<String> attributes, List<String> attributeMatches, List<String> hasAttributes,
+            List<String> components, String filter, String updatedAfter, String updatedBefore, String createdAfter) {
+        Map<String, String> attributeMap = new HashMap<>();
+        List<AttributePredicate> attributePredicates = new ArrayList<>();
+        List<ComponentSearchCriterion> componentCriteria;
+        FilterExpression filterExpression;
+        try {
+            for (AttributePredicate predicate : decodeAttributes(attributes, attributeMatches, hasAttributes)) {
+                if (predicate.getOperator() == AttributePredicate.Operator.EQ) {
+                    // Equality is served by index of attribute values
+                    attributeMap.put(predicate.getKey(), predicate.getValue());
+                } else {
+                    attributePredicates.add(predicate);
+                }
+            }
+            componentCriteria = components.stream().map(ComponentSearchCriterion::parse).collect(Collectors.toList());
+            filterExpression = filter == null ? null : FilterExpression.parse(filter);
+        } catch (IllegalArgumentException e) {
+            throw badRequest(e.getMessage());
+        }
+        TagQuery query = new TagQuery(attributeMap, attributePredicates, componentCriteria,
+                decodeDate("updatedAfter", updatedAfter), decodeDate("updatedBefore", updatedBefore),
+                decodeDate("createdAfter", createdAfter));
+        return filterExpression == null ? query : query.withFilter(filterExpression);
+    }
+
+    private List<AttributePredicate> decodeAttributes(List<String> attributes, List<String> attributeMatches,
+            List<String> hasAttributes) {
+        List<AttributePredicate> predicates = new ArrayList<>();
+        if (attributes != null) {
+            for (String keyValue : attributes) {
+                String[] splitted = splitKeyValue(keyValue);
+                predicates.add(AttributePredicate.equalTo(splitted[0], splitted[1]));
             }
-            map.put(splitted[0].trim(), splitted[1].trim());
         }
-        return map;
+        if (attributeMatches != null) {
+            for (String keyExpression : attributeMatches) {
+                String[] splitted = splitKeyValue(keyExpression);
+                predicates.add(AttributePredicate.parse(splitted[0], splitted[1]));
+            }
+        }
+        if (hasAttributes != null) {
+            hasAttributes.forEach(key -> predicates.add(AttributePredicate.exists(key.trim())));
+        }
+        return predicates;
+    }
+
+    /**
+     * @return trimmed key and value of given pair in key:value format
+     * @throws BadRequestException if pair is not in format key:value
+     */
+    private static String[] splitKeyValue(String keyValue) {
+        String[] splitted = keyValue.split(":", 2);
+        if (splitted.length != 2 || splitted[0].isEmpty()) {
+            throw badRequest("Invalid attribute key value pair: " + keyValue);
+        }
+        return new String[] {splitted[0].trim(), splitted[1].trim()};
     }
 
     @POST
@@ -119,21 +365,80 @@ public class TagRestResource extends ComponentSupport implements Resource, TagRe
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
     @Override
-    public Tag addOrUpdate(TagDefinition definition, @PathParam("name") String name) {
+    public Response addOrUpdate(TagDefinition definition, @PathParam("name") String name,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
         validate(definition);
         if (!name.equals(definition.getName())) {
-            Response response =
-                    Response.status(Status.BAD_REQUEST).entity(ErrorResponse.of("Cannot change name.")).build();
-            throw new BadRequestException(response);
+            throw badRequest("Cannot change name.");
         }
-        return tagStore.addOrUpdate(definition);
+        return withEntityTag(tagStore.addOrUpdate(definition, expectedVersion(ifMatch)));
+    }
+
+    @PATCH
+    @Path("/tags/{name}")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Override
+    public Response patch(@PathParam("name") String name, TagPatch patch,
+            @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        if (patch == null) {
+            throw badRequest("Patch is required.");
+        }
+        // Only added components are validated, as existing ones are already validated
+        validate(patch);
+        return withEntityTag(tagStore.patch(name, patch, expectedVersion(ifMatch)));
+    }
+
+    @PUT
+    @Path("/tags")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @Override
+    public List<TagUpsertResult> addOrUpdateAll(List<TagDefinition> definitions) {
+        if (definitions == null || definitions.contains(null)) {
+            throw badRequest("Tag definitions should be given as an array of non-null definitions.");
+        }
+        Set<String> names = new HashSet<>();
+        for (TagDefinition definition : definitions) {
+            if (definition.getName() != null && !names.add(definition.getName())) {
+                throw badRequest("Duplicate tag name: " + definition.getName());
+            }
+        }
+        // Existence of all components is checked at once, so validating each definition is served from cache
+        componentExistenceChecker.findMissing(definitions.stream()
+                .filter(definition -> definition.getComponents() != null)
+                .flatMap(definition -> definition.getComponents().stream())
+                .filter(component -> component != null && component.getRepository() != null
+                        && component.getName() != null)
+                .collect(Collectors.toSet()));
+
+        TagUpsertResult[] results = new TagUpsertResult[definitions.size()];
+        List<TagDefinition> validDefinitions = new ArrayList<>();
+        for (int i = 0; i < definitions.size(); i++) {
+            TagDefinition definition = definitions.get(i);
+            Set<ConstraintViolation<TagDefinition>> violations = validator.validate(definition);
+            if (violations.isEmpty()) {
+                validDefinitions.add(definition);
+            } else {
+                String error = violations.stream().map(ConstraintViolation::getMessage).sorted()
+                        .collect(Collectors.joining(" "));
+                results[i] = new TagUpsertResult(definition.getName(), Outcome.INVALID, error);
+            }
+        }
+        Iterator<TagUpsertResult> writeResults = tagStore.addOrUpdateAll(validDefinitions).iterator();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = writeResults.next();
+            }
+        }
+        return Arrays.asList(results);
     }
 
     @DELETE
     @Path("/tags/{name}")
     @Override
-    public void delete(@PathParam("name") String name) {
-        tagStore.delete(name);
+    public void delete(@PathParam("name") String name, @HeaderParam(HttpHeaders.IF_MATCH) String ifMatch) {
+        tagStore.delete(name, expectedVersion(ifMatch));
     }
 
     @POST
@@ -148,12 +453,87 @@ public class TagRestResource extends ComponentSupport implements Resource, TagRe
 
     @POST
     @Path("/import-tags")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    @Override
+    public ImportResult importTags(InputStream tags) throws IOException {
+        return tagStore.importTags(TagJson.readTags(tags));
+    }
+
+    @POST
+    @Path("/import-jobs")
+    @Consumes({MediaType.APPLICATION_JSON, APPLICATION_NDJSON})
+    @Produces(MediaType.APPLICATION_JSON)
+    @Override
+    public Response submitImportJob(InputStream tags, @Context UriInfo uriInfo) throws IOException {
+        ImportJobStatus status;
+        try {
+            status = importJobManager.submit(tags);
+        } catch (RejectedExecutionException e) {
+            Response response = Response.status(Status.SERVICE_UNAVAILABLE)
+                    .entity(ErrorResponse.of("Too many import jobs are queued, try again later.")).build();
+            throw new ServiceUnavailableException(response);
+        }
+        return Response.accepted(status).location(uriInfo.getAbsolutePathBuilder().path(status.getId()).build())
+                .build();
+    }
+
+    @GET
+    @Path("/import-jobs/{id}")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Override
+    public ImportJobStatus getImportJob(@PathParam("id") String id) {
+        return importJobManager.getStatus(id);
+    }
+
+    @GET
+    @Path("/import-jobs")
     @Produces(MediaType.APPLICATION_JSON)
     @Override
-    public ImportResult importTags(List<Tag> tags) {
-        int created = tagStore.importTags(tags);
-        return new ImportResult(tags.size(), created);
+    public List<ImportJobStatus> listImportJobs() {
+        return importJobManager.list();
+    }
+
+    /**
+     * Builds response of given tag, with version of tag as its entity tag. So it can be used in If-Match header of
+     * later requests, to change the tag only if it's not changed meanwhile.
+     */
+    private static Response withEntityTag(Tag tag) {
+        ResponseBuilder response = Response.ok(tag);
+        if (tag.getVersion() != null) {
+            response.tag(new EntityTag(tag.getVersion().toString()));
+        }
+        return response.build();
+    }
+
+    /**
+     * @param ifMatch value of If-Match header, which may be null
+     * @return version of tag given by If-Match header, {@link TagStore#ANY_VERSION} if header is '*' which only
+     *     requires tag to exist, or null if header is not present
+     * @throws BadRequestException if header does not contain a single entity tag returned by previous responses
+     */
+    private static Integer expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return TagStore.ANY_VERSION;
+        }
+        try {
+            EntityTag entityTag = EntityTag.valueOf(ifMatch.trim());
+            if (!entityTag.isWeak()) {
+                return Integer.valueOf(entityTag.getValue());
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        throw badRequest("If-Match header should contain '*' or a single entity tag returned by previous "
+                + "responses: " + ifMatch);
+    }
+
+    private static BadRequestException badRequest(String message) {
+        Response response = Response.status(Status.BAD_REQUEST).entity(ErrorResponse.of(message)).build();
+        return new BadRequestException(response);
     }
 
     /**
@@ -1,37 +1,130 @@
 package ir.sahab.nexus.plugin.tag.internal;
 
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportJobStatus;
 import ir.sahab.nexus.plugin.tag.internal.dto.ImportResult;
 import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange;
 import ir.sahab.nexus.plugin.tag.internal.dto.TagCloneRequest;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagCount;
 import ir.sahab.nexus.plugin.tag.internal.dto.TagDefinition;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagPatch;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriInfo;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
+import io.swagger.annotations.ResponseHeader;
 
 @Api(value = "Tag")
 public interface TagRestResourceDoc {
 
     @GET
-    @ApiOperation("Get a single tag by name")
+    @ApiOperation(value = "Get a single tag by name", response = Tag.class, responseHeaders = {
+            @ResponseHeader(name = HttpHeaders.ETAG, response = String.class,
+                    description = "Version of tag, which can be used in If-Match header of updates")
+        })
     @ApiResponses(value = {
         @ApiResponse(code = 404, message = "Tag does not exists")
     })
-    Tag getByName(@ApiParam(value = "name of tag to retrieve", required = true) String name);
+    Response getByName(@ApiParam(value = "name of tag to retrieve", required = true) String name);
 
     @GET
-    @ApiOperation("List tags, results may be filtered by optional attributes")
-    List<Tag> list(
-            @ApiParam("List of attribute key value pairs to search in format key:value") List<String> attributes,
+    @ApiOperation(value = "List tags, results may be filtered by optional attributes", response = Tag.class,
+            responseContainer = "List", responseHeaders = {
+                @ResponseHeader(name = TagRestResource.CONTINUATION_TOKEN_HEADER, response = String.class,
+                        description = "Token to fetch next page, present only if there are more tags")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Invalid request")
+    })
+    Response list(
+            @ApiParam("List of attributes to search in format key:value, values are matched exactly")
+                List<String> attributes,
+            @ApiParam("List of attribute predicates to search in format key:expression. Expression may be a prefix"
+                    + " followed by *, e.g. branch:release/*, or a number or version following op=(>|<|>=|<=), e.g."
+                    + " build:>=1200") List<String> attributeMatches,
+            @ApiParam("List of attribute keys which tags should have, regardless of their values")
+                List<String> hasAttributes,
             @ApiParam("List of associated components to search for in format repository:group:name op version." +
-                    " op=(=|>|<|>=|=<)")
-                List<String> components);
+                    " op=(=|>|<|>=|=<). Versions are ordered by the version scheme of format of repository.")
+                List<String> components,
+            @ApiParam("Boolean expression of attribute and component terms combined by and, or, not and parentheses,"
+                    + " e.g. (status:successful or status:failed) and not component(repo1:g1:n1 =< 2). Attribute"
+                    + " terms are in the same format as attribute parameter, values containing spaces or parentheses"
+                    + " can be quoted. match(key:expression) matches the same as attributeMatch parameter, and"
+                    + " has(key) matches tags having an attribute. Matched tags should also match other parameters.")
+                String filter,
+            @ApiParam("Maximum number of tags to return. If not present, all found tags are returned.") Integer limit,
+            @ApiParam("Token returned in header of previous page to fetch the next page") String continuationToken,
+            @ApiParam("Streams all found tags as a JSON array. Tags are also streamed, as newline delimited JSON, if"
+                    + " client accepts " + TagRestResource.APPLICATION_NDJSON + ". Streamed tags are not a consistent"
+                    + " snapshot, tags updated while streaming may be missing or repeated.") boolean stream,
+            @ApiParam("Comma separated list of fields of tags to return, e.g. name,attributes. Other fields are"
+                    + " omitted, and components are not read at all if they are not requested. If not present, all"
+                    + " fields are returned.") String fields,
+            @ApiParam("Returns only tags updated after this time, e.g. 2020-10-22T06:26:27.236+0000 or milliseconds"
+                    + " since epoch") String updatedAfter,
+            @ApiParam("Returns only tags updated before this time") String updatedBefore,
+            @ApiParam("Returns only tags created after this time") String createdAfter,
+            HttpHeaders headers);
+
+    @GET
+    @ApiOperation(value = "Count tags matching the same filters as list API, optionally per value of an attribute."
+            + " Only numbers are returned, tags are not read.", response = TagCount.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Invalid request")
+    })
+    TagCount count(
+            @ApiParam("List of attributes to search in format key:value, the same as list API")
+                List<String> attributes,
+            @ApiParam("List of attribute predicates to search in format key:expression, the same as list API")
+                List<String> attributeMatches,
+            @ApiParam("List of attribute keys which tags should have") List<String> hasAttributes,
+            @ApiParam("List of associated components to search for, the same as list API") List<String> components,
+            @ApiParam("Boolean filter expression, the same as list API") String filter,
+            @ApiParam("Counts only tags updated after this time") String updatedAfter,
+            @ApiParam("Counts only tags updated before this time") String updatedBefore,
+            @ApiParam("Counts only tags created after this time") String createdAfter,
+            @ApiParam("Key of an attribute to count tags per its value. Tags without the attribute are counted only in"
+                    + " total count. Key should not contain a backslash or both ' and \".") String groupBy);
+
+    @GET
+    @ApiOperation(value = "Export all tags as a stream, the result can be imported by import API. Tags are exported"
+            + " as newline delimited JSON if client accepts " + TagRestResource.APPLICATION_NDJSON + ". Each tag"
+            + " is exported exactly once, even if it is updated during export.",
+            response = Tag.class, responseContainer = "List")
+    Response export(HttpHeaders headers);
+
+    @GET
+    @ApiOperation(value = "Read changes of tags after a sequence number, ordered by sequence number. If there is no"
+            + " change, waits until a tag is changed, so changes can be followed by long polling. Only name of changed"
+            + " tags are returned, current state of them can be read by other APIs.", response = TagChange.class,
+            responseContainer = "List", responseHeaders = {
+                @ResponseHeader(name = TagRestResource.LAST_SEQUENCE_HEADER, response = Long.class,
+                        description = "Sequence number of the last committed change")
+            })
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = "Invalid request"),
+        @ApiResponse(code = 410, message = "Changes after given sequence number are expired, all tags should be read"
+                + " again")
+    })
+    Response changes(
+            @ApiParam("Sequence number of the last change which is already read, or 0 to read from the first change")
+                long since,
+            @ApiParam("Maximum number of changes to return, at most 1000") int limit,
+            @ApiParam("Maximum seconds to wait for a change if there is no change, at most 60") int waitSeconds);
 
     @POST
     @ApiOperation("Add a new tag")
@@ -41,19 +134,53 @@ public interface TagRestResourceDoc {
     Tag add(TagDefinition definition);
 
     @PUT
-    @ApiOperation("Add a new tag or updates existing one")
+    @ApiOperation(value = "Add a new tag or updates existing one", response = Tag.class, responseHeaders = {
+            @ResponseHeader(name = HttpHeaders.ETAG, response = String.class, description = "Version of tag")
+        })
     @ApiResponses(value = {
-        @ApiResponse(code = 400, message = "Invalid request.")
+        @ApiResponse(code = 400, message = "Invalid request."),
+        @ApiResponse(code = 409, message = "Tag is concurrently changed"),
+        @ApiResponse(code = 412, message = "Tag does not exist or does not match the version in If-Match header")
     })
-    Tag addOrUpdate(TagDefinition definition,
-            @ApiParam(value = "Name of tag to create or update", required = true) String name);
+    Response addOrUpdate(TagDefinition definition,
+            @ApiParam(value = "Name of tag to create or update", required = true) String name,
+            @ApiParam("Entity tag of a previous response, tag is changed only if it's not changed since then, or *"
+                    + " to change tag only if it exists") String ifMatch);
+
+    @PATCH
+    @ApiOperation(value = "Partially update existing tag. Given attributes are added or replaced, and given"
+            + " components are added or removed, while other attributes and components are left unchanged. Only added"
+            + " components are validated.", response = Tag.class, responseHeaders = {
+                @ResponseHeader(name = HttpHeaders.ETAG, response = String.class, description = "Version of tag")
+            })
+    @ApiResponses(value = {
+            @ApiResponse(code = 400, message = "Invalid request"),
+            @ApiResponse(code = 404, message = "Tag does not exists"),
+            @ApiResponse(code = 409, message = "Tag is concurrently changed"),
+            @ApiResponse(code = 412, message = "Tag does not exist or does not match the version in If-Match header")
+    })
+    Response patch(@ApiParam(value = "Name of tag to patch", required = true) String name, TagPatch patch,
+            @ApiParam("Entity tag of a previous response, tag is changed only if it's not changed since then, or *"
+                    + " to change tag only if it exists") String ifMatch);
+
+    @PUT
+    @ApiOperation("Add or update given tags at once. Components of all tags are validated together and tags are"
+            + " written in chunks, each chunk in a separate transaction. Outcome of each tag is reported in the same"
+            + " order, invalid tags and tags of failed chunks are not written.")
+    @ApiResponses(value = {
+        @ApiResponse(code = 400, message = "Invalid request, e.g. duplicate tag names")
+    })
+    List<TagUpsertResult> addOrUpdateAll(List<TagDefinition> definitions);
 
     @DELETE
     @ApiOperation("Deletes existing tag by name")
     @ApiResponses(value = {
-        @ApiResponse(code = 404, message = "Tag does not exists")
+        @ApiResponse(code = 404, message = "Tag does not exists"),
+        @ApiResponse(code = 412, message = "Tag does not exist or does not match the version in If-Match header")
     })
-    void delete(@ApiParam(value = "Name of tag to delete", required = true) String name);
+    void delete(@ApiParam(value = "Name of tag to delete", required = true) String name,
+            @ApiParam("Entity tag of a previous response, tag is changed only if it's not changed since then, or *"
+                    + " to change tag only if it exists") String ifMatch);
 
     @POST
     @ApiOperation("Clone an existing tag")
@@ -64,7 +191,31 @@ public interface TagRestResourceDoc {
     Tag clone(@ApiParam(value = "Name of tag to clone", required = true) String name, TagCloneRequest request);
 
     @POST
-    @ApiOperation("Import given tags. Exiting tags will be ignored.")
+    @ApiOperation("Import given tags. Exiting tags will be ignored. Tags are imported in chunks, each chunk in a"
+            + " separate transaction, and result of each chunk is reported.")
     @ApiResponses(value = {@ApiResponse(code = 400, message = "Invalid request")})
-    ImportResult importTags(List<Tag> tags);
-}
\ No newline at end of file
+    ImportResult importTags(
+            @ApiParam(value = "JSON array of tags to import, or tags as newline delimited JSON", required = true)
+                InputStream tags) throws IOException;
+
+    @POST
+    @ApiOperation(value = "Submit given tags to be imported asynchronously. Returns status of the queued job"
+            + " immediately, which can be polled afterwards.", code = 202)
+    @ApiResponses(value = {
+            @ApiResponse(code = 503, message = "Too many import jobs are queued")
+    })
+    Response submitImportJob(
+            @ApiParam(value = "JSON array of tags to import, or tags as newline delimited JSON", required = true)
+                InputStream tags, UriInfo uriInfo) throws IOException;
+
+    @GET
+    @ApiOperation("Get status and progress of an import job")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Import job does not exists")
+    })
+    ImportJobStatus getImportJob(@ApiParam(value = "Id of import job", required = true) String id);
+
+    @GET
+    @ApiOperation("List status of queued, running and recently finished import jobs")
+    List<ImportJobStatus> listImportJobs();
+}
@@ -0,0 +1,141 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.sonatype.goodies.common.ComponentSupport;
+
+/**
+ * Caches results of tag searches, so identical searches which are repeated frequently are served from memory until
+ * a tag is changed. Cached results are keyed by a normalized form of search parameters together with the write
+ * generation, which {@link TagStore} advances after any change of tags. So results of previous generations are never
+ * served, even if they are cached by a search which was running during a change. Size of cache is bounded by total
+ * number of cached tags.
+ */
+@Named
+@Singleton
+public class TagSearchCache extends ComponentSupport {
+
+    private final Cache<QueryKey, Object> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    @Inject
+    public TagSearchCache(@Named("${nexus.tag.searchCache.maxTags:-10000}") int maxTags,
+            @Named("${nexus.tag.searchCache.ttlSeconds:-60}") int ttlSeconds, MetricRegistry metricRegistry) {
+        checkArgument(maxTags >= 0, "Maximum tags of search cache should not be negative");
+        checkArgument(ttlSeconds >= 0, "TTL of search cache should not be negative");
+        cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxTags)
+                .<QueryKey, Object>weigher((key, result) -> 1 + (result instanceof ResultPage
+                        ? ((ResultPage<?>) result).getItems().size() : ((List<?>) result).size()))
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CacheGauges.register(metricRegistry, TagSearchCache.class, cache);
+    }
+
+    /**
+     * Returns cached result of given search, or runs and caches it if it's not cached.
+     */
+    public List<Tag> search(TagQuery query, Set<TagField> fields, Supplier<List<Tag>> search) {
+        return get(new QueryKey(generation.get(), query, fields, null),
+                () -> Collections.unmodifiableList(immutableCopy(search.get())));
+    }
+
+    /**
+     * Returns cached first page of given paged search, or runs and caches it if it's not cached. Following pages are
+     * not cached, as they are rarely repeated and streaming or exporting all tags fetches many of them, which would
+     * evict the repeated searches the cache is for.
+     */
+    public ResultPage<Tag> searchFirstPage(TagQuery query, Set<TagField> fields, int limit,
+            Supplier<ResultPage<Tag>> search) {
+        return get(new QueryKey(generation.get(), query, fields, limit), () -> {
+            ResultPage<Tag> page = search.get();
+            return new ResultPage<>(Collections.unmodifiableList(immutableCopy(page.getItems())), page.getNext());
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(QueryKey key, Supplier<T> search) {
+        Object result = cache.getIfPresent(key);
+        if (result == null) {
+            result = search.get();
+            // Result is useless if tags are changed during the search
+            if (generation.get() == key.generation) {
+                cache.put(key, result);
+            }
+        }
+        return (T) result;
+    }
+
+    /**
+     * Advances write generation, so all cached results are invalidated. It should be called after a change of tags is
+     * committed.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return statistics of hits, misses and evictions since start
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static List<Tag> immutableCopy(List<Tag> tags) {
+        return tags.stream().map(TagCache::immutableCopy).collect(Collectors.toList());
+    }
+
+    /**
+     * Parameters of a search. Queries are already normalized, and order of selected fields does not affect the result.
+     */
+    private static class QueryKey {
+        private final long generation;
+        private final TagQuery query;
+        private final Set<TagField> fields;
+        private final Integer limit;
+
+        QueryKey(long generation, TagQuery query, Set<TagField> fields, Integer limit) {
+            this.generation = generation;
+            this.query = query;
+            this.fields = EnumSet.copyOf(fields);
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            QueryKey that = (QueryKey) o;
+            return generation == that.generation && query.equals(that.query) && fields.equals(that.fields)
+                    && Objects.equals(limit, that.limit);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(generation, query, fields, limit);
+        }
+    }
+}
@@ -1,24 +1,51 @@
 package ir.sahab.nexus.plugin.tag.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SCHEMAS;
 
+import com.google.common.collect.AbstractIterator;
+import com.orientechnologies.common.concur.ONeedRetryException;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportChunkResult;
 import ir.sahab.nexus.plugin.tag.internal.dto.ImportResult;
 import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange.Type;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagCount;
 import ir.sahab.nexus.plugin.tag.internal.dto.TagDefinition;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagPatch;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult.Outcome;
 import ir.sahab.nexus.plugin.tag.internal.exception.TagAlreadyExistsException;
+import ir.sahab.nexus.plugin.tag.internal.exception.TagChangesExpiredException;
+import ir.sahab.nexus.plugin.tag.internal.exception.TagConflictException;
 import ir.sahab.nexus.plugin.tag.internal.exception.TagNotFoundException;
+import ir.sahab.nexus.plugin.tag.internal.exception.TagVersionMismatchException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -28,6 +55,8 @@ import org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport;
 import org.sonatype.nexus.orient.DatabaseInstance;
 import org.sonatype.nexus.orient.DatabaseInstanceNames;
 import org.sonatype.nexus.orient.DatabaseManager;
+import org.sonatype.nexus.orient.entity.AttachedEntityHelper;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
 /**
  * Acts as a facade for storing and retrieving tags into database.
@@ -37,16 +66,48 @@ import org.sonatype.nexus.orient.DatabaseManager;
 @Singleton
 public class TagStore extends StateGuardLifecycleSupport {
 
+    /**
+     * Upper bound of backoff before first retry of a conflicting transaction, doubled on each retry.
+     */
+    private static final long RETRY_BACKOFF_MILLIS = 10;
+
+    /**
+     * Expected version which matches any version of an existing tag, like an If-Match header of '*'.
+     */
+    public static final int ANY_VERSION = -1;
+
     private final Provider<DatabaseInstance> dbProvider;
     private final DatabaseManager databaseManager;
     private final TagEntityAdapter entityAdapter;
+    private final TagComponentIndex componentIndex;
+    private final TagChangeLog changeLog;
+    private final TagCache tagCache;
+    private final TagSearchCache searchCache;
+    private final TagMetrics metrics;
+    private final int importChunkSize;
+    private final int maxRetries;
+
+    /** Runs pruning of change log periodically while store is started */
+    private ScheduledExecutorService pruneExecutor;
 
     @Inject
     public TagStore(@Named(TagDatabase.NAME) Provider<DatabaseInstance> dbProvider, DatabaseManager databaseManager,
-            TagEntityAdapter entityAdapter) {
+            TagEntityAdapter entityAdapter, TagComponentIndex componentIndex, TagChangeLog changeLog,
+            TagCache tagCache, TagSearchCache searchCache, TagMetrics metrics,
+            @Named("${nexus.tag.import.chunkSize:-1000}") int importChunkSize,
+            @Named("${nexus.tag.tx.maxRetries:-5}") int maxRetries) {
+        checkArgument(importChunkSize > 0, "Import chunk size should be positive");
+        checkArgument(maxRetries >= 0, "Maximum retries of transactions should not be negative");
         this.dbProvider = dbProvider;
         this.databaseManager = databaseManager;
         this.entityAdapter = entityAdapter;
+        this.componentIndex = componentIndex;
+        this.changeLog = changeLog;
+        this.tagCache = tagCache;
+        this.searchCache = searchCache;
+        this.metrics = metrics;
+        this.importChunkSize = importChunkSize;
+        this.maxRetries = maxRetries;
     }
 
     /**
@@ -72,12 +133,19 @@ public class TagStore extends StateGuardLifecycleSupport {
         try (ODatabaseDocumentTx tx = dbProvider.get().connect()) {
             entityAdapter.register(tx);
             log.info("Tag entity adapter registered into {} db.", tx.getName());
+            entityAdapter.upgrade(tx);
+            if (componentIndex.register(tx)) {
+                buildComponentIndex(tx);
+            }
+            changeLog.register(tx);
+            changeLog.prune(tx);
             if (!tagsToMigrate.isEmpty()) {
                 log.info("Importing {} tags from {} database.", tagsToMigrate.size(), cleanupDatabases);
                 for (TagEntity tag : tagsToMigrate) {
                     if (!entityAdapter.findByName(tx, tag.getName()).isPresent()) {
                         tag.setEntityMetadata(null);
-                        entityAdapter.addEntity(tx, tag);
+                        ODocument document = entityAdapter.addEntity(tx, tag);
+                        componentIndex.add(tx, document);
                     }
                 }
                 log.info("{} tags imported into tag database.", tagsToMigrate.size());
@@ -89,13 +157,55 @@ public class TagStore extends StateGuardLifecycleSupport {
                 log.info("{} dropped in {} database.", TagEntityAdapter.DB_CLASS, database);
             }
         }
+        int pruneInterval = changeLog.getPruneIntervalMinutes();
+        pruneExecutor = Executors.newSingleThreadScheduledExecutor(
+                new NexusThreadFactory("tag-change-log", "tag-change-log-prune"));
+        pruneExecutor.scheduleWithFixedDelay(this::pruneChangeLog, pruneInterval, pruneInterval, TimeUnit.MINUTES);
+    }
+
+    @Override
+    protected void doStop() throws InterruptedException {
+        pruneExecutor.shutdownNow();
+        if (!pruneExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+            log.warn("Pruning of tag change log is not terminated.");
+        }
+    }
+
+    /**
+     * Removes changes older than retention period from change log. Failures are only logged, so next runs are still
+     * scheduled.
+     */
+    void pruneChangeLog() {
+        try (ODatabaseDocumentTx tx = dbProvider.get().acquire()) {
+            changeLog.prune(tx);
+        } catch (RuntimeException e) {
+            log.warn("Failed to prune tag change log.", e);
+        }
     }
 
     /**
-     * @return tag with given name
+     * Prior to v1.3.0, there was no component index. This method builds index records for existing tags.
+     */
+    private void buildComponentIndex(ODatabaseDocumentTx tx) {
+        int indexed = 0;
+        for (TagEntity tag : entityAdapter.browse(tx)) {
+            componentIndex.add(tx, AttachedEntityHelper.document(tag));
+            indexed++;
+        }
+        if (indexed > 0) {
+            log.info("Components of {} existing tags are indexed.", indexed);
+        }
+    }
+
+    /**
+     * @return tag with given name, which may be served from cache and should not be modified
      * @throws TagNotFoundException if tag does not exists
      */
     public Tag getByName(String name) {
+        return metrics.time("getByName", () -> tagCache.get(name, this::loadByName));
+    }
+
+    private Tag loadByName(String name) {
         try (ODatabaseDocumentTx tx = dbProvider.get().acquire()) {
             return getTag(name, tx).toDto();
         }
@@ -105,17 +215,210 @@ public class TagStore extends StateGuardLifecycleSupport {
      * Searches for tags with given attributes and components.
      * @param attributes attributes to match
      * @param componentCriteria components criteria to match on resulting tags
-     * @return list of found tags
+     * @return list of found tags, which may be served from cache and should not be modified
      */
     public List<Tag> search(Map<String, String> attributes, List<ComponentSearchCriterion> componentCriteria) {
+        return search(new TagQuery(attributes, componentCriteria), TagField.ALL);
+    }
+
+    /**
+     * Searches for tags matching given query, and returns only given fields of them.
+     * @param query criteria to match on resulting tags
+     * @param fields fields of tags to return, other fields are null
+     * @return list of found tags, which may be served from cache and should not be modified
+     */
+    public List<Tag> search(TagQuery query, Set<TagField> fields) {
+        return metrics.time("search", () -> {
+            List<Tag> tags = searchCache.search(query, fields, () -> doSearch(query, fields));
+            metrics.searched(tags.size());
+            return tags;
+        });
+    }
+
+    private List<Tag> doSearch(TagQuery query, Set<TagField> fields) {
         try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
-            return StreamSupport.stream(entityAdapter.search(tx, attributes).spliterator(), false)
-                    .filter(tag -> tag.matches(componentCriteria))
+            Set<ORID> tagIds = findCandidateTags(tx, query);
+            if (tagIds != null && tagIds.isEmpty()) {
+                return new ArrayList<>();
+            }
+            if (!fields.containsAll(TagField.ALL)) {
+                return entityAdapter.search(tx, query, tagIds, fields);
+            }
+            return StreamSupport.stream(entityAdapter.search(tx, query, tagIds).spliterator(), false)
                     .map(TagEntity::toDto)
                     .collect(Collectors.toList());
         }
     }
 
+    /**
+     * Searches for a page of tags with given attributes and components. Found tags are ordered by last update time
+     * descending.
+     * @param attributes attributes to match
+     * @param componentCriteria components criteria to match on resulting tags
+     * @param after token returned with previous page, or null to fetch the first page
+     * @param limit maximum number of tags to return
+     * @return page of found tags, which may be served from cache and should not be modified
+     */
+    public ResultPage<Tag> search(Map<String, String> attributes, List<ComponentSearchCriterion> componentCriteria,
+            @Nullable ContinuationToken after, int limit) {
+        return search(new TagQuery(attributes, componentCriteria), after, limit, TagField.ALL);
+    }
+
+    /**
+     * Searches for a page of tags matching given query, and returns only given fields of them. Found tags are ordered
+     * by last update time descending.
+     * @param query criteria to match on resulting tags
+     * @param after token returned with previous page, or null to fetch the first page
+     * @param limit maximum number of tags to return
+     * @param fields fields of tags to return, other fields are null
+     * @return page of found tags, which may be served from cache and should not be modified
+     */
+    public ResultPage<Tag> search(TagQuery query, @Nullable ContinuationToken after, int limit,
+            Set<TagField> fields) {
+        if (after != null) {
+            return searchUncached(query, after, limit, fields);
+        }
+        return metrics.time("search", () -> {
+            ResultPage<Tag> page =
+                    searchCache.searchFirstPage(query, fields, limit, () -> doSearch(query, null, limit, fields));
+            metrics.searched(page.getItems().size());
+            return page;
+        });
+    }
+
+    private ResultPage<Tag> searchUncached(TagQuery query, @Nullable ContinuationToken after, int limit,
+            Set<TagField> fields) {
+        return metrics.time("search", () -> {
+            ResultPage<Tag> page = doSearch(query, after, limit, fields);
+            metrics.searched(page.getItems().size());
+            return page;
+        });
+    }
+
+    /**
+     * Searches for tags matching given query page by page, ordered the same as
+     * {@link #search(TagQuery, ContinuationToken, int, Set)}. Pages are fetched lazily while iterating, each in a
+     * separate transaction, so results are not a consistent snapshot: a tag which is updated during iteration moves
+     * before already fetched pages, so it is either returned twice or not returned at all. Use
+     * {@link #export(int)} to read all tags. Pages are not cached, so streaming many tags does not evict cached
+     * results of repeated searches.
+     *
+     * @param query criteria to match on resulting tags
+     * @param start token to start after it, or null to start from the first tag
+     * @param pageSize maximum number of tags fetched at once
+     * @param fields fields of tags to return, other fields are null
+     * @return iterator of pages of found tags
+     */
+    public Iterator<List<Tag>> stream(TagQuery query, @Nullable ContinuationToken start, int pageSize,
+            Set<TagField> fields) {
+        return new AbstractIterator<List<Tag>>() {
+            private ContinuationToken after = start;
+            private boolean finished;
+
+            @Override
+            protected List<Tag> computeNext() {
+                if (finished) {
+                    return endOfData();
+                }
+                ResultPage<Tag> page = searchUncached(query, after, pageSize, fields);
+                after = page.getNext();
+                finished = after == null;
+                return page.getItems();
+            }
+        };
+    }
+
+    /**
+     * Reads all tags page by page, ordered by their identity. Pages are fetched lazily while iterating, each in a
+     * separate transaction. Identity of tags never changes, so every tag which exists during the whole iteration is
+     * returned exactly once, even if it is updated meanwhile. Tags which are created or deleted during iteration may or
+     * may not be returned.
+     *
+     * @param pageSize maximum number of tags fetched at once
+     * @return iterator of pages of all tags
+     */
+    public Iterator<List<Tag>> export(int pageSize) {
+        return new AbstractIterator<List<Tag>>() {
+            private ORID after;
+            private boolean finished;
+
+            @Override
+            protected List<Tag> computeNext() {
+                if (finished) {
+                    return endOfData();
+                }
+                return metrics.time("export", () -> {
+                    try (ODatabaseDocumentTx tx = dbProvider.get().acquire()) {
+                        List<TagEntity> entities = entityAdapter.browse(tx, after, pageSize);
+                        finished = entities.size() < pageSize;
+                        if (!entities.isEmpty()) {
+                            after = AttachedEntityHelper.document(entities.get(entities.size() - 1)).getIdentity();
+                        }
+                        return entities.stream().map(TagEntity::toDto).collect(Collectors.toList());
+                    }
+                });
+            }
+        };
+    }
+
+    private ResultPage<Tag> doSearch(TagQuery query, @Nullable ContinuationToken after, int limit,
+            Set<TagField> fields) {
+        try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
+            Set<ORID> tagIds = findCandidateTags(tx, query);
+            if (tagIds != null && tagIds.isEmpty()) {
+                return new ResultPage<>(new ArrayList<>(), null);
+            }
+            if (!fields.containsAll(TagField.ALL)) {
+                return entityAdapter.search(tx, query, tagIds, after, limit, fields);
+            }
+            return entityAdapter.search(tx, query, tagIds, after, limit).map(TagEntity::toDto);
+        }
+    }
+
+    /**
+     * Counts tags matching given query, and optionally counts them per value of an attribute. Tags are counted by the
+     * database, so they are not read into memory.
+     *
+     * @param query criteria to match on counted tags
+     * @param groupBy key of attribute to group tags by, or null to only count all matching tags
+     */
+    public TagCount count(TagQuery query, @Nullable String groupBy) {
+        return metrics.time("count", () -> {
+            try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
+                Set<ORID> tagIds = findCandidateTags(tx, query);
+                if (tagIds != null && tagIds.isEmpty()) {
+                    return new TagCount(0, groupBy == null ? null : new LinkedHashMap<>());
+                }
+                long count = entityAdapter.count(tx, query, tagIds);
+                return new TagCount(count, groupBy == null ? null : entityAdapter.count(tx, query, tagIds, groupBy));
+            }
+        });
+    }
+
+    /**
+     * Resolves component criteria and attribute predicates of given query into identities of tags using their indexes.
+     *
+     * @return identities of tags matching them, or null if query has neither of them
+     */
+    @Nullable
+    private Set<ORID> findCandidateTags(ODatabaseDocumentTx tx, TagQuery query) {
+        Set<ORID> tagIds = null;
+        if (!query.getComponentCriteria().isEmpty()) {
+            tagIds = componentIndex.findTags(tx, query.getComponentCriteria());
+            if (tagIds.isEmpty()) {
+                return tagIds;
+            }
+        }
+        if (!query.getAttributePredicates().isEmpty()) {
+            Set<ORID> found = entityAdapter.findTags(tx, query.getAttributePredicates());
+            if (tagIds == null) {
+                tagIds = found;
+            } else {
+                tagIds.retainAll(found);
+            }
+        }
+        return tagIds;
+    }
 
     /**
      * Creates tag with given definition if it does not already exists, otherwise
@@ -124,29 +427,173 @@ public class TagStore extends StateGuardLifecycleSupport {
      * @return created/updated tag
      */
     public Tag addOrUpdate(TagDefinition definition) {
+        return addOrUpdate(definition, null);
+    }
+
+    /**
+     * Same as {@link #addOrUpdate(TagDefinition)}, but if an expected version is given, tag is updated only if it
+     * exists with the same version.
+     *
+     * @param expectedVersion expected version of existing tag, {@link #ANY_VERSION} to update tag only if it exists,
+     *     or null to create or update tag regardless of version
+     * @throws TagVersionMismatchException if tag does not exist or has a different version than expected one
+     */
+    public Tag addOrUpdate(TagDefinition definition, @Nullable Integer expectedVersion) {
+        return metrics.time("addOrUpdate", () -> doAddOrUpdate(definition, expectedVersion));
+    }
+
+    private Tag doAddOrUpdate(TagDefinition definition, @Nullable Integer expectedVersion) {
         log.info("Adding or updating tag: {}", definition);
-        try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
-            Date currentDate = new Date();
+        TagEntity entity = inTransaction("addOrUpdate", (tx, changes) -> {
             Optional<TagEntity> existing = entityAdapter.findByName(tx, definition.getName());
-            TagEntity entity = existing.orElseGet(() -> {
-                TagEntity newEntity = entityAdapter.newEntity();
-                newEntity.setName(definition.getName());
-                newEntity.setFirstCreated(currentDate);
-                return newEntity;
-            });
-            entity.setAttributes(new HashMap<>(definition.getAttributes()));
-            entity.setComponents(new ArrayList<>(definition.getComponents()));
-            entity.setLastUpdated(currentDate);
-
+            if (expectedVersion != null) {
+                checkVersion(existing.orElse(null), expectedVersion);
+            }
+            TagEntity written = upsert(tx, definition, existing, new Date());
+            changes.put(definition.getName(), existing.isPresent() ? Type.UPDATED : Type.CREATED);
             if (existing.isPresent()) {
-                entityAdapter.editEntity(tx, entity);
-                log.info("Tag {} updated in database.", entity);
+                log.info("Tag {} updated in database.", written);
             } else {
-                entityAdapter.addEntity(tx, entity);
-                log.info("Tag {} added to database.", entity);
+                log.info("Tag {} added to database.", written);
+            }
+            return written;
+        });
+        tagsChanged(Collections.singleton(definition.getName()));
+        return entity.toDto();
+    }
+
+    /**
+     * Writes given definition into existing entity, or a new entity if there is no existing one.
+     * @return written entity
+     */
+    private TagEntity upsert(ODatabaseDocumentTx tx, TagDefinition definition, Optional<TagEntity> existing,
+            Date currentDate) {
+        TagEntity entity = existing.orElseGet(() -> {
+            TagEntity newEntity = entityAdapter.newEntity();
+            newEntity.setName(definition.getName());
+            newEntity.setFirstCreated(currentDate);
+            return newEntity;
+        });
+        entity.setAttributes(new HashMap<>(definition.getAttributes()));
+        entity.setComponents(new ArrayList<>(definition.getComponents()));
+        entity.setLastUpdated(currentDate);
+
+        if (existing.isPresent()) {
+            ODocument document = entityAdapter.editEntity(tx, entity);
+            componentIndex.update(tx, document);
+        } else {
+            ODocument document = entityAdapter.addEntity(tx, entity);
+            componentIndex.add(tx, document);
+        }
+        return entity;
+    }
+
+    /**
+     * Applies given changes on existing tag. Only attributes, last update time and changed components are written,
+     * so cost of patching does not depend on the number of unchanged components. If the patch does not change the
+     * tag, nothing is written.
+     *
+     * @param name name of tag to patch
+     * @param patch changes to apply, added components should be validated before
+     * @param expectedVersion expected version of tag, {@link #ANY_VERSION} to match any version, or null to patch tag
+     *     regardless of version
+     * @return patched tag
+     * @throws TagNotFoundException if tag with given name does not exists and no version is expected
+     * @throws TagVersionMismatchException if a version is expected, and tag does not exist or has a different version
+     */
+    public Tag patch(String name, TagPatch patch, @Nullable Integer expectedVersion) {
+        return metrics.time("patch", () -> doPatch(name, patch, expectedVersion));
+    }
+
+    private Tag doPatch(String name, TagPatch patch, @Nullable Integer expectedVersion) {
+        log.info("Patching {} tag: {}", name, patch);
+        boolean[] changed = new boolean[1];
+        TagEntity entity = inTransaction("patch", (tx, changes) -> {
+            TagEntity patched = getTag(name, tx, expectedVersion);
+            Map<String, String> attributes = new HashMap<>(patched.getAttributes());
+            attributes.keySet().removeAll(patch.getRemovedAttributes());
+            attributes.putAll(patch.getAttributes());
+
+            List<AssociatedComponent> components = patched.getComponents();
+            Set<AssociatedComponent> removed = new HashSet<>(patch.getRemovedComponents());
+            removed.retainAll(components);
+            components.removeAll(removed);
+            Set<AssociatedComponent> existing = new HashSet<>(components);
+            List<AssociatedComponent> added = patch.getAddedComponents().stream()
+                    .filter(existing::add)
+                    .collect(Collectors.toList());
+            components.addAll(added);
+
+            changed[0] = !attributes.equals(patched.getAttributes()) || !removed.isEmpty() || !added.isEmpty();
+            if (!changed[0]) {
+                log.info("Tag {} is not changed by patch.", name);
+                return patched;
             }
-            return entity.toDto();
+            patched.setAttributes(attributes);
+            patched.setLastUpdated(new Date());
+            ODocument document = entityAdapter.patchEntity(tx, patched, removed, added);
+            componentIndex.remove(tx, document.getIdentity(), removed);
+            componentIndex.add(tx, document, added);
+            changes.put(name, Type.UPDATED);
+            log.info("Tag {} patched, {} components removed and {} components added.", name, removed.size(),
+                    added.size());
+            return patched;
+        });
+        if (changed[0]) {
+            tagsChanged(Collections.singleton(name));
+        }
+        return entity.toDto();
+    }
+
+    /**
+     * Creates or updates tags with given definitions, like {@link #addOrUpdate(TagDefinition)}. Tags are written in
+     * chunks, each chunk is committed in a separate transaction. If a chunk fails, none of its tags are written and
+     * the next chunks are still written. Names of given definitions should be distinct.
+     *
+     * @return outcome of each definition, in the same order
+     */
+    public List<TagUpsertResult> addOrUpdateAll(List<TagDefinition> definitions) {
+        return metrics.time("addOrUpdateAll", () -> doAddOrUpdateAll(definitions));
+    }
+
+    private List<TagUpsertResult> doAddOrUpdateAll(List<TagDefinition> definitions) {
+        log.info("Adding or updating {} tags in chunks of {} tags.", definitions.size(), importChunkSize);
+        List<TagUpsertResult> results = new ArrayList<>(definitions.size());
+        for (int start = 0; start < definitions.size(); start += importChunkSize) {
+            int end = Math.min(start + importChunkSize, definitions.size());
+            results.addAll(upsertChunk(definitions.subList(start, end)));
+        }
+        Map<Outcome, Long> outcomes =
+                results.stream().collect(Collectors.groupingBy(TagUpsertResult::getOutcome, Collectors.counting()));
+        log.info("{} tags added or updated: {}", definitions.size(), outcomes);
+        return results;
+    }
+
+    private List<TagUpsertResult> upsertChunk(List<TagDefinition> chunk) {
+        List<String> names = chunk.stream().map(TagDefinition::getName).collect(Collectors.toList());
+        List<TagUpsertResult> results;
+        try {
+            results = inTransaction("addOrUpdateAll", (tx, changes) -> {
+                Date currentDate = new Date();
+                List<TagUpsertResult> chunkResults = new ArrayList<>(chunk.size());
+                for (TagDefinition definition : chunk) {
+                    Optional<TagEntity> existing = entityAdapter.findByName(tx, definition.getName());
+                    upsert(tx, definition, existing, currentDate);
+                    log.debug("Tag {} {}.", definition.getName(), existing.isPresent() ? "updated" : "added");
+                    chunkResults.add(new TagUpsertResult(definition.getName(),
+                            existing.isPresent() ? Outcome.UPDATED : Outcome.CREATED, null));
+                    changes.put(definition.getName(), existing.isPresent() ? Type.UPDATED : Type.CREATED);
+                }
+                return chunkResults;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to add or update chunk of {} tags: {}", chunk.size(), names, e);
+            return names.stream()
+                    .map(name -> new TagUpsertResult(name, Outcome.FAILED, e.getMessage()))
+                    .collect(Collectors.toList());
         }
+        tagsChanged(names);
+        return results;
     }
 
     /**
@@ -154,12 +601,32 @@ public class TagStore extends StateGuardLifecycleSupport {
      * @throws TagNotFoundException if tag with given name does not exists
      */
     public void delete(String name) throws TagNotFoundException {
+        delete(name, null);
+    }
+
+    /**
+     * Same as {@link #delete(String)}, but if an expected version is given, tag is deleted only if it has the same
+     * version.
+     *
+     * @param expectedVersion expected version of tag, {@link #ANY_VERSION} to match any version, or null to delete tag
+     *     regardless of version
+     * @throws TagVersionMismatchException if a version is expected, and tag does not exist or has a different version
+     */
+    public void delete(String name, @Nullable Integer expectedVersion) throws TagNotFoundException {
+        metrics.time("delete", () -> doDelete(name, expectedVersion));
+    }
+
+    private void doDelete(String name, @Nullable Integer expectedVersion) {
         log.info("Deleting {} tag.", name);
-        try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
-            TagEntity entity = getTag(name, tx);
+        inTransaction("delete", (tx, changes) -> {
+            TagEntity entity = getTag(name, tx, expectedVersion);
+            componentIndex.remove(tx, AttachedEntityHelper.id(entity));
             entityAdapter.deleteEntity(tx, entity);
+            changes.put(name, Type.DELETED);
             log.info("Tag {} deleted.", entity);
-        }
+            return entity;
+        });
+        tagsChanged(Collections.singleton(name));
     }
 
     /**
@@ -171,24 +638,150 @@ public class TagStore extends StateGuardLifecycleSupport {
      * @throws TagAlreadyExistsException if tag with given new name already exists
      */
     public Tag cloneExisting(String sourceTagName, String newTagName, Map<String, String> appendingAttributes) {
+        return metrics.time("cloneExisting", () -> doCloneExisting(sourceTagName, newTagName, appendingAttributes));
+    }
+
+    private Tag doCloneExisting(String sourceTagName, String newTagName, Map<String, String> appendingAttributes) {
         log.info("Cloning {} into {}, appending attributes:{}", sourceTagName, newTagName, appendingAttributes);
-        try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
+        TagEntity cloned = inTransaction("cloneExisting", (tx, changes) -> {
             TagEntity entity = getTag(sourceTagName, tx);
             if (entityAdapter.findByName(tx, newTagName).isPresent()) {
                 throw new TagAlreadyExistsException();
             }
-            TagEntity cloned = new TagEntity(entity);
-            cloned.setName(newTagName);
-            cloned.getAttributes().putAll(appendingAttributes);
+            TagEntity newEntity = new TagEntity(entity);
+            newEntity.setName(newTagName);
+            newEntity.getAttributes().putAll(appendingAttributes);
             Date date = new Date();
-            cloned.setFirstCreated(date);
-            cloned.setLastUpdated(date);
-            entityAdapter.addEntity(tx, cloned);
-            log.info("Tag {} cloned into new tag: {}", sourceTagName, cloned);
-            return cloned.toDto();
+            newEntity.setFirstCreated(date);
+            newEntity.setLastUpdated(date);
+            ODocument document = entityAdapter.addEntity(tx, newEntity);
+            componentIndex.add(tx, document);
+            changes.put(newTagName, Type.CREATED);
+            log.info("Tag {} cloned into new tag: {}", sourceTagName, newEntity);
+            return newEntity;
+        });
+        tagsChanged(Collections.singleton(newTagName));
+        return cloned.toDto();
+    }
+
+    /**
+     * Reads changes of tags after given sequence number. If there is no such change, waits until a change is
+     * committed or given time elapses, so consumers can follow changes by long polling.
+     *
+     * @param after sequence number of the last change which is already read, or zero to read from the start
+     * @param limit maximum number of changes to return
+     * @param waitMillis maximum time to wait for a change, or zero to return immediately
+     * @return changes ordered by sequence number, which is empty if no change is committed in time
+     * @throws TagChangesExpiredException if changes right after given sequence number are removed from change log
+     */
+    public List<TagChange> changes(long after, int limit, long waitMillis) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            long commits = changeLog.commits();
+            List<TagChange> changes = metrics.time("changes", () -> readChanges(after, limit));
+            long remaining = deadline - System.currentTimeMillis();
+            if (!changes.isEmpty() || remaining <= 0) {
+                return changes;
+            }
+            try {
+                changeLog.awaitCommit(commits, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return changes;
+            }
+        }
+    }
+
+    private List<TagChange> readChanges(long after, int limit) {
+        try (ODatabaseDocumentTx tx = dbProvider.get().acquire()) {
+            Long first = changeLog.firstSequence(tx);
+            if (first != null && first > after + 1) {
+                log.info("Changes after {} are requested, but the first retained change is {}.", after, first);
+                throw new TagChangesExpiredException(changeLog.lastSequence(tx));
+            }
+            return changeLog.read(tx, after, limit);
+        }
+    }
+
+    /**
+     * @return sequence number of the last committed change of tags, or zero if no tag is changed yet
+     */
+    public long lastChangeSequence() {
+        try (ODatabaseDocumentTx tx = dbProvider.get().acquire()) {
+            Long last = changeLog.lastSequence(tx);
+            return last == null ? 0 : last;
+        }
+    }
+
+    /**
+     * Runs given work in a new transaction and commits it. Transactions which fail due to concurrent changes of the
+     * same tags, i.e. a concurrent modification of a record or a concurrent creation of a tag with the same name, are
+     * retried in a new transaction after a randomized exponential backoff. So given work may be run several times and
+     * should have no side effect other than writing into the database. Given work puts changes of tags it makes into
+     * the given map, which are appended to change log on commit. If given work or commit fails, the transaction is
+     * rolled back, so none of its writes are committed.
+     *
+     * @param operation name of operation, used in logs and metrics
+     * @return result of given work
+     * @throws TagConflictException if transaction still fails after the maximum number of retries
+     */
+    private <T> T inTransaction(String operation, BiFunction<ODatabaseDocumentTx, Map<String, Type>, T> work) {
+        for (int retry = 0; ; retry++) {
+            try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
+                try {
+                    Map<String, Type> changes = new LinkedHashMap<>();
+                    T result = work.apply(tx, changes);
+                    changeLog.commit(tx, changes);
+                    return result;
+                } catch (RuntimeException e) {
+                    // Closing connection commits its active transaction, so writes of failed work are rolled back
+                    if (tx.getTransaction().isActive()) {
+                        tx.rollback();
+                    }
+                    throw e;
+                }
+            } catch (ONeedRetryException | ORecordDuplicatedException e) {
+                if (retry >= maxRetries) {
+                    log.warn("Operation {} failed due to concurrent changes after {} retries.", operation, retry, e);
+                    metrics.conflicted(operation);
+                    throw new TagConflictException();
+                }
+                long backoffMillis = ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MILLIS << retry) + 1;
+                log.debug("Operation {} failed due to concurrent changes, retrying in {} ms: {}", operation,
+                        backoffMillis, e.getMessage());
+                metrics.retried(operation);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
         }
     }
 
+    /**
+     * @param entity existing tag, or null if tag does not exist
+     * @param expectedVersion expected version of tag, or {@link #ANY_VERSION} to match any version
+     * @throws TagVersionMismatchException if tag does not exist or its version is not the expected one
+     */
+    private static void checkVersion(@Nullable TagEntity entity, int expectedVersion) {
+        if (entity == null
+                || expectedVersion != ANY_VERSION && AttachedEntityHelper.version(entity) != expectedVersion) {
+            throw new TagVersionMismatchException();
+        }
+    }
+
+    /**
+     * Invalidates cached tags with given names and cached search results, and wakes up consumers waiting for changes.
+     * It should be called after changes of tags are committed.
+     */
+    private void tagsChanged(Collection<String> names) {
+        tagCache.invalidateAll(names);
+        searchCache.invalidate();
+        changeLog.committed();
+    }
+
     private TagEntity getTag(String name, ODatabaseDocumentTx tx) {
         Optional<TagEntity> optional = entityAdapter.findByName(tx, name);
         if (!optional.isPresent()) {
@@ -198,30 +791,111 @@ public class TagStore extends StateGuardLifecycleSupport {
         log.info("Tag {} found: {}", name, optional.get());
         return optional.get();
     }
+    /**
+     * Finds tag by name like {@link #getTag(String, ODatabaseDocumentTx)}, but if a version is expected, tag should
+     * exist with expected version. Like If-Match header, a missing tag does not match an expected version.
+     *
+     * @throws TagVersionMismatchException if a version is expected, and tag does not exist or has a different version
+     */
+    private TagEntity getTag(String name, ODatabaseDocumentTx tx, @Nullable Integer expectedVersion) {
+        if (expectedVersion == null) {
+            return getTag(name, tx);
+        }
+        TagEntity entity = entityAdapter.findByName(tx, name).orElse(null);
+        checkVersion(entity, expectedVersion);
+        return entity;
+    }
+
 
     /**
-     * Imports given tags. Exiting tags are ignored.
-     * @return number of created tags
+     * Imports given tags in chunks, each chunk is committed in a separate transaction. Exiting tags are ignored. If a
+     * chunk fails, import continues with the next chunk. Tags are consumed from given iterator as needed, so only one
+     * chunk is held in memory at a time.
+     * @return result of import, containing result of each chunk
      */
-    public int importTags(List<Tag> tags) {
-        int created = 0;
-        log.info("Importing {} tags into the database.", tags.size());
-        try (ODatabaseDocumentTx tx = dbProvider.get().acquire().begin()) {
-            for (Tag tag : tags) {
-                if (!entityAdapter.findByName(tx, tag.getName()).isPresent()) {
-                    log.debug("Adding {} tag.", tag.getName());
-                    TagEntity entity = entityAdapter.newEntity();
-                    entity.setName(tag.getName());
-                    entity.setAttributes(tag.getAttributes());
-                    entity.setComponents(tag.getComponents());
-                    entity.setFirstCreated(tag.getFirstCreated());
-                    entity.setLastUpdated(tag.getLastUpdated());
-                    entityAdapter.addEntity(tx, entity);
-                    created++;
+    public ImportResult importTags(Iterator<Tag> tags) {
+        return importTags(tags, chunkResult -> { });
+    }
+
+    /**
+     * Same as {@link #importTags(Iterator)}, but notifies given listener as soon as each chunk is imported, so
+     * progress of a long running import can be tracked.
+     */
+    public ImportResult importTags(Iterator<Tag> tags, Consumer<ImportChunkResult> chunkListener) {
+        return metrics.time("importTags", () -> doImportTags(tags, chunkListener));
+    }
+
+    private ImportResult doImportTags(Iterator<Tag> tags, Consumer<ImportChunkResult> chunkListener) {
+        log.info("Importing tags into the database in chunks of {} tags.", importChunkSize);
+        ImportResult result = new ImportResult();
+        List<Tag> chunk = new ArrayList<>(importChunkSize);
+        while (true) {
+            chunk.clear();
+            try {
+                while (chunk.size() < importChunkSize && tags.hasNext()) {
+                    chunk.add(tags.next());
                 }
+            } catch (RuntimeException e) {
+                // Remaining tags can not be read, so import stops after this chunk
+                log.warn("Failed to read tags after {} tags.", result.getTotal() + chunk.size(), e);
+                ImportChunkResult chunkResult = ImportChunkResult.failed(result.getChunks().size(), chunk.size(),
+                        "Invalid tags: " + e.getMessage());
+                result.add(chunkResult);
+                metrics.imported(0, 0, chunkResult.getTotal());
+                chunkListener.accept(chunkResult);
+                break;
+            }
+            if (chunk.isEmpty()) {
+                break;
+            }
+            ImportChunkResult chunkResult = importChunk(result.getChunks().size(), chunk);
+            result.add(chunkResult);
+            metrics.imported(chunkResult.getCreated(), chunkResult.getSkipped(),
+                    chunkResult.isFailed() ? chunkResult.getTotal() : 0);
+            chunkListener.accept(chunkResult);
+            log.info("Chunk {} of {} tags imported, {} created and {} skipped. {} tags are processed so far.",
+                    chunkResult.getIndex(), chunkResult.getTotal(), chunkResult.getCreated(), chunkResult.getSkipped(),
+                    result.getTotal());
+        }
+        log.info("{} out of {} tags imported into the database: {}", result.getCreated(), result.getTotal(), result);
+        return result;
+    }
+
+    private ImportChunkResult importChunk(int index, List<Tag> chunk) {
+        List<String> names = chunk.stream().map(Tag::getName).collect(Collectors.toList());
+        try {
+            int created = inTransaction("importTags", (tx, changes) -> importChunk(tx, chunk, names, changes));
+            if (created > 0) {
+                tagsChanged(names);
+            }
+            return new ImportChunkResult(index, chunk.size(), created, chunk.size() - created, null);
+        } catch (RuntimeException e) {
+            log.warn("Failed to import chunk {} of {} tags.", index, chunk.size(), e);
+            return ImportChunkResult.failed(index, chunk.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * @param changes changes of tags made by transaction, which created tags are added to
+     * @return number of created tags
+     */
+    private int importChunk(ODatabaseDocumentTx tx, List<Tag> chunk, List<String> names, Map<String, Type> changes) {
+        // Names of existing tags, including tags added by this chunk
+        Set<String> existingNames = entityAdapter.findExistingNames(tx, names);
+        for (Tag tag : chunk) {
+            if (existingNames.add(tag.getName())) {
+                log.debug("Adding {} tag.", tag.getName());
+                TagEntity entity = entityAdapter.newEntity();
+                entity.setName(tag.getName());
+                entity.setAttributes(tag.getAttributes());
+                entity.setComponents(tag.getComponents());
+                entity.setFirstCreated(tag.getFirstCreated());
+                entity.setLastUpdated(tag.getLastUpdated());
+                ODocument document = entityAdapter.addEntity(tx, entity);
+                componentIndex.add(tx, document);
+                changes.put(tag.getName(), Type.CREATED);
             }
         }
-        log.info("{} out of {} tags imported into the database.", created, tags.size());
-        return created;
+        return changes.size();
     }
 }
@@ -0,0 +1,51 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Writes tags into response page by page, so memory usage does not depend on the number of written tags. Tags are
+ * written either as a JSON array or as newline delimited JSON (NDJSON).
+ */
+class TagStreamingOutput implements StreamingOutput {
+
+    private final Iterator<List<Tag>> pages;
+    private final boolean newlineDelimited;
+
+    /**
+     * @param pages pages of tags to write, which are expected to be fetched lazily while iterating
+     * @param newlineDelimited true to write tags as NDJSON, false to write them as a JSON array
+     */
+    TagStreamingOutput(Iterator<List<Tag>> pages, boolean newlineDelimited) {
+        this.pages = pages;
+        this.newlineDelimited = newlineDelimited;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        try (JsonGenerator generator = TagJson.MAPPER.getFactory().createGenerator(output)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            if (!newlineDelimited) {
+                generator.writeStartArray();
+            }
+            while (pages.hasNext()) {
+                for (Tag tag : pages.next()) {
+                    generator.writeObject(tag);
+                    if (newlineDelimited) {
+                        generator.writeRaw('\n');
+                    }
+                }
+                generator.flush();
+            }
+            if (!newlineDelimited) {
+                generator.writeEndArray();
+            }
+        }
+    }
+}
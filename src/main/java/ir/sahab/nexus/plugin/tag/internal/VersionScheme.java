@@ -0,0 +1,86 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Scheme of ordering component versions, which is chosen by format of repository of components. Each scheme encodes
+ * versions into sortable keys, so versions are compared by plain string comparison of their keys. Keys of all schemes
+ * are stored for each associated component, as repositories and their formats may not be known when tags are written.
+ */
+public enum VersionScheme {
+
+    /**
+     * Versions composed of numbers separated by '.' or '_', e.g. 1.2.10.
+     */
+    NUMERIC {
+        @Override
+        String toKey(String version) {
+            return ComponentSearchCriterion.Version.toKey(version);
+        }
+    },
+
+    /**
+     * Order of Maven, which supports qualifiers like alpha, rc and SNAPSHOT, e.g. 1.0-rc1 &lt; 1.0-SNAPSHOT &lt; 1.0.
+     */
+    MAVEN {
+        @Override
+        String toKey(String version) {
+            return MavenVersion.toKey(version);
+        }
+    },
+
+    /**
+     * Semantic versioning, as used by npm, e.g. 1.0.0-beta.2 &lt; 1.0.0-rc.1 &lt; 1.0.0.
+     */
+    SEMVER {
+        @Override
+        String toKey(String version) {
+            return SemanticVersion.toKey(version);
+        }
+    };
+
+    /** Cached result of values(), which copies the array on each call */
+    private static final VersionScheme[] SCHEMES = values();
+
+    private final String keyName = name().toLowerCase(Locale.ENGLISH);
+
+    /**
+     * @return sortable key of given version, or null if version is not supported by this scheme
+     */
+    abstract String toKey(String version);
+
+    /**
+     * @return name of this scheme in configuration and in maps of version keys
+     */
+    public String getKeyName() {
+        return keyName;
+    }
+
+    /**
+     * @return sortable keys of given version keyed by name of schemes, excluding schemes which do not support version
+     */
+    static Map<String, String> toKeys(String version) {
+        Map<String, String> keys = new HashMap<>();
+        for (VersionScheme scheme : SCHEMES) {
+            String key = scheme.toKey(version);
+            if (key != null) {
+                keys.put(scheme.keyName, key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no scheme with given name
+     */
+    public static VersionScheme of(String keyName) {
+        for (VersionScheme scheme : SCHEMES) {
+            if (scheme.keyName.equals(keyName)) {
+                return scheme;
+            }
+        }
+        throw new IllegalArgumentException("Unknown version scheme: " + keyName);
+    }
+}
@@ -0,0 +1,67 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+
+/**
+ * Chooses {@link VersionScheme version scheme} of repositories by their format. Schemes of formats are configured as
+ * comma separated format=scheme pairs, e.g. maven2=maven,npm=semver. Repositories of other formats, and unknown
+ * repositories, use the numeric scheme.
+ */
+@Named
+@Singleton
+public class VersionSchemes {
+
+    private final Function<String, String> repositoryFormats;
+    private final Map<String, VersionScheme> formatSchemes;
+
+    @Inject
+    public VersionSchemes(RepositoryManager repositoryManager,
+            @Named("${nexus.tag.versionSchemes:-maven2=maven,npm=semver}") String formatSchemes) {
+        this(repositoryName -> {
+            Repository repository = repositoryManager.get(repositoryName);
+            return repository == null ? null : repository.getFormat().getValue();
+        }, formatSchemes);
+    }
+
+    /**
+     * @param repositoryFormats returns format of repository with given name, or null if it does not exist
+     * @param formatSchemes schemes of formats as comma separated format=scheme pairs
+     */
+    @VisibleForTesting
+    VersionSchemes(Function<String, String> repositoryFormats, String formatSchemes) {
+        this.repositoryFormats = repositoryFormats;
+        this.formatSchemes = parse(formatSchemes);
+    }
+
+    private static Map<String, VersionScheme> parse(String formatSchemes) {
+        if (formatSchemes.trim().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, VersionScheme> result = new HashMap<>();
+        for (String pair : formatSchemes.split(",")) {
+            String[] parts = pair.split("=");
+            checkArgument(parts.length == 2, "Version scheme of format should be format=scheme: %s", pair);
+            result.put(parts[0].trim(), VersionScheme.of(parts[1].trim()));
+        }
+        return result;
+    }
+
+    /**
+     * @return scheme of ordering versions of components of given repository
+     */
+    public VersionScheme forRepository(String repository) {
+        String format = repositoryFormats.apply(repository);
+        return format == null ? VersionScheme.NUMERIC : formatSchemes.getOrDefault(format, VersionScheme.NUMERIC);
+    }
+}
@@ -1,6 +1,5 @@
 package ir.sahab.nexus.plugin.tag.internal.dto;
 
-import ir.sahab.nexus.plugin.tag.internal.validation.ComponentExists;
 import java.util.Objects;
 import javax.validation.constraints.NotNull;
 import org.hibernate.validator.constraints.NotBlank;
@@ -8,7 +7,6 @@ import org.hibernate.validator.constraints.NotBlank;
 /**
  * Represent a component (artifact) which a tag can be associated with.
  */
-@ComponentExists
 public class AssociatedComponent {
 
     @NotBlank(message = "Component repository can't be null/blank.")
@@ -76,7 +74,7 @@ public class AssociatedComponent {
             return false;
         AssociatedComponent that = (AssociatedComponent) o;
         return repository.equals(that.repository) &&
-               group.equals(that.group) &&
+               Objects.equals(group, that.group) &&
                name.equals(that.name) &&
                Objects.equals(version, that.version);
     }
@@ -0,0 +1,84 @@
+package ir.sahab.nexus.plugin.tag.internal.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Holds result of importing a chunk of tags, which is committed in a separate transaction.
+ */
+public class ImportChunkResult {
+    private int index;
+    private int total;
+    private int created;
+    private int skipped;
+    private String error;
+
+    // Used by jackson
+    public ImportChunkResult() {
+    }
+
+    public ImportChunkResult(int index, int total, int created, int skipped, String error) {
+        this.index = index;
+        this.total = total;
+        this.created = created;
+        this.skipped = skipped;
+        this.error = error;
+    }
+
+    public static ImportChunkResult failed(int index, int total, String error) {
+        return new ImportChunkResult(index, total, 0, 0, error);
+    }
+
+    /**
+     * @return zero based index of chunk in imported tags
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    /**
+     * @return number of tags which are ignored as they already exist
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return error message if importing the chunk is failed, otherwise null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @JsonIgnore
+    public boolean isFailed() {
+        return error != null;
+    }
+}
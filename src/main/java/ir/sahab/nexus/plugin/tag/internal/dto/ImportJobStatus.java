@@ -0,0 +1,177 @@
+package ir.sahab.nexus.plugin.tag.internal.dto;
+
+import java.util.Date;
+
+/**
+ * Holds status and progress of an asynchronous import job.
+ */
+public class ImportJobStatus {
+
+    public enum State {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+    private State state;
+    private Date submitted;
+    private Date started;
+    private Date finished;
+    private long totalBytes;
+    private long readBytes;
+    private int processed;
+    private int created;
+    private int skipped;
+    private int failed;
+    private double throughput;
+    private Long etaSeconds;
+    private String error;
+    private ImportResult result;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public Date getSubmitted() {
+        return submitted;
+    }
+
+    public void setSubmitted(Date submitted) {
+        this.submitted = submitted;
+    }
+
+    public Date getStarted() {
+        return started;
+    }
+
+    public void setStarted(Date started) {
+        this.started = started;
+    }
+
+    public Date getFinished() {
+        return finished;
+    }
+
+    public void setFinished(Date finished) {
+        this.finished = finished;
+    }
+
+    /**
+     * @return size of submitted payload in bytes
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * @return number of bytes of payload which are read so far
+     */
+    public long getReadBytes() {
+        return readBytes;
+    }
+
+    public void setReadBytes(long readBytes) {
+        this.readBytes = readBytes;
+    }
+
+    /**
+     * @return number of tags processed so far
+     */
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * @return average number of tags processed per second since start of the job
+     */
+    public double getThroughput() {
+        return throughput;
+    }
+
+    public void setThroughput(double throughput) {
+        this.throughput = throughput;
+    }
+
+    /**
+     * @return estimated number of seconds until the job is finished, based on the rate payload is read. It's null if
+     *     the job is not running or can not be estimated yet.
+     */
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    /**
+     * @return cause of failure, if the job is failed
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return result of import, including result of each chunk, present only when the job is completed
+     */
+    public ImportResult getResult() {
+        return result;
+    }
+
+    public void setResult(ImportResult result) {
+        this.result = result;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportJobStatus{id=" + id + ", state=" + state + ", processed=" + processed + ", created=" + created
+                + ", skipped=" + skipped + ", failed=" + failed + '}';
+    }
+}
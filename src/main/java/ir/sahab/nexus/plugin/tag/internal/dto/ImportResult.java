@@ -1,11 +1,18 @@
 package ir.sahab.nexus.plugin.tag.internal.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Holds result of importing tag operation.
  */
 public class ImportResult {
     private int total;
     private int created;
+    private int skipped;
+    private int failed;
+    private List<ImportChunkResult> chunks = new ArrayList<>();
 
     // Used by jackson
     public ImportResult() {
@@ -16,6 +23,19 @@ public class ImportResult {
         this.created = created;
     }
 
+    /**
+     * Adds result of an imported chunk into this result.
+     */
+    public void add(ImportChunkResult chunk) {
+        chunks.add(chunk);
+        total += chunk.getTotal();
+        created += chunk.getCreated();
+        skipped += chunk.getSkipped();
+        if (chunk.isFailed()) {
+            failed += chunk.getTotal();
+        }
+    }
+
     public int getTotal() {
         return total;
     }
@@ -32,4 +52,47 @@ public class ImportResult {
         this.created = created;
     }
 
+    /**
+     * @return number of tags which are ignored as they already exist
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(int skipped) {
+        this.skipped = skipped;
+    }
+
+    /**
+     * @return number of tags in failed chunks
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<ImportChunkResult> getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(List<ImportChunkResult> chunks) {
+        this.chunks = chunks;
+    }
+
+    /**
+     * @return true if importing of any chunk is failed
+     */
+    @JsonIgnore
+    public boolean hasFailures() {
+        return chunks.stream().anyMatch(ImportChunkResult::isFailed);
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{total=" + total + ", created=" + created + ", skipped=" + skipped + ", failed=" + failed
+                + ", chunks=" + chunks.size() + '}';
+    }
 }
@@ -1,5 +1,8 @@
 package ir.sahab.nexus.plugin.tag.internal.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -7,14 +10,18 @@ import java.util.Objects;
 
 /**
  * Represents a tag which can be created using REST API. This class is meant to
- * be serialized by Jackson and to be used in REST API.
+ * be serialized by Jackson and to be used in REST API. Fields which are not selected by a search are null, and are
+ * omitted from JSON.
  */
+@JsonInclude(Include.NON_NULL)
 public class Tag extends TagDefinition {
 
     private Date firstCreated;
 
     private Date lastUpdated;
 
+    private Integer version;
+
     public Tag() {
     }
 
@@ -41,6 +48,20 @@ public class Tag extends TagDefinition {
         this.lastUpdated = lastUpdated;
     }
 
+    /**
+     * @return version of stored tag, which is changed on each update, or null if it's unknown. It's exposed as entity
+     *     tag of responses rather than a field.
+     */
+    @JsonIgnore
+    public Integer getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -48,11 +69,11 @@ public class Tag extends TagDefinition {
         if (o == null || getClass() != o.getClass())
             return false;
         Tag tag = (Tag) o;
-        return name.equals(tag.name) &&
-               attributes.equals(tag.attributes) &&
-               components.equals(tag.components) &&
-               firstCreated.equals(tag.firstCreated) &&
-               lastUpdated.equals(tag.lastUpdated);
+        return Objects.equals(name, tag.name) &&
+               Objects.equals(attributes, tag.attributes) &&
+               Objects.equals(components, tag.components) &&
+               Objects.equals(firstCreated, tag.firstCreated) &&
+               Objects.equals(lastUpdated, tag.lastUpdated);
     }
 
     @Override
@@ -0,0 +1,76 @@
+package ir.sahab.nexus.plugin.tag.internal.dto;
+
+import java.util.Date;
+
+/**
+ * Represents a change of a tag in the change feed. Changes are ordered by their sequence numbers, which are assigned in
+ * the order changes are committed.
+ */
+public class TagChange {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private long sequence;
+    private Type type;
+    private String name;
+    private Date timestamp;
+
+    // Used by jackson
+    public TagChange() {
+    }
+
+    public TagChange(long sequence, Type type, String name, Date timestamp) {
+        this.sequence = sequence;
+        this.type = type;
+        this.name = name;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * @return sequence number of change, which can be passed to change feed to fetch changes after this one
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * @return name of changed tag
+     */
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "TagChange{sequence=" + sequence + ", type=" + type + ", name='" + name + "', timestamp=" + timestamp
+                + '}';
+    }
+}
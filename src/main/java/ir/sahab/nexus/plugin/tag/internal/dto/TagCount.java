@@ -0,0 +1,51 @@
+package ir.sahab.nexus.plugin.tag.internal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import java.util.Map;
+
+/**
+ * Holds number of tags matching a search, and optionally number of them per value of an attribute.
+ */
+@JsonInclude(Include.NON_NULL)
+public class TagCount {
+    private long count;
+    private Map<String, Long> groups;
+
+    // Used by jackson
+    public TagCount() {
+    }
+
+    public TagCount(long count, Map<String, Long> groups) {
+        this.count = count;
+        this.groups = groups;
+    }
+
+    /**
+     * @return number of matching tags
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * @return number of matching tags by value of the grouping attribute, ordered by number of tags descending, or
+     *     null if tags are not grouped. Tags which do not have the attribute are not counted in any group.
+     */
+    public Map<String, Long> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(Map<String, Long> groups) {
+        this.groups = groups;
+    }
+
+    @Override
+    public String toString() {
+        return "TagCount{count=" + count + ", groups=" + groups + '}';
+    }
+}
@@ -1,5 +1,6 @@
 package ir.sahab.nexus.plugin.tag.internal.dto;
 
+import ir.sahab.nexus.plugin.tag.internal.validation.ComponentsExist;
 import java.util.List;
 import java.util.Map;
 import javax.validation.Valid;
@@ -20,6 +21,7 @@ public class TagDefinition {
 
     @NotNull(message = "Tag components can't be null.")
     @Valid
+    @ComponentsExist
     protected List<AssociatedComponent> components;
 
     public TagDefinition() {
@@ -0,0 +1,93 @@
+package ir.sahab.nexus.plugin.tag.internal.dto;
+
+import ir.sahab.nexus.plugin.tag.internal.validation.ComponentsExist;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Holds changes to apply on an existing tag. Removals are applied before additions, and fields which are not present
+ * are left unchanged.
+ */
+public class TagPatch {
+
+    @NotNull(message = "Attributes to set can't be null.")
+    private Map<String, String> attributes = new HashMap<>();
+
+    @NotNull(message = "Attributes to remove can't be null.")
+    private Set<String> removedAttributes = new HashSet<>();
+
+    @NotNull(message = "Components to add can't be null.")
+    @Valid
+    @ComponentsExist
+    private List<AssociatedComponent> addedComponents = new ArrayList<>();
+
+    @NotNull(message = "Components to remove can't be null.")
+    private List<AssociatedComponent> removedComponents = new ArrayList<>();
+
+    public TagPatch() {
+    }
+
+    public TagPatch(Map<String, String> attributes, Set<String> removedAttributes,
+            List<AssociatedComponent> addedComponents, List<AssociatedComponent> removedComponents) {
+        this.attributes = attributes;
+        this.removedAttributes = removedAttributes;
+        this.addedComponents = addedComponents;
+        this.removedComponents = removedComponents;
+    }
+
+    /**
+     * @return attributes to add, or to replace if they already exist
+     */
+    public Map<String, String> getAttributes() {
+        return attributes;
+    }
+
+    public void setAttributes(Map<String, String> attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * @return keys of attributes to remove, missing ones are ignored
+     */
+    public Set<String> getRemovedAttributes() {
+        return removedAttributes;
+    }
+
+    public void setRemovedAttributes(Set<String> removedAttributes) {
+        this.removedAttributes = removedAttributes;
+    }
+
+    /**
+     * @return components to associate with tag, already associated ones are ignored
+     */
+    public List<AssociatedComponent> getAddedComponents() {
+        return addedComponents;
+    }
+
+    public void setAddedComponents(List<AssociatedComponent> addedComponents) {
+        this.addedComponents = addedComponents;
+    }
+
+    /**
+     * @return components to dissociate from tag, which are matched by coordinates and version
+     */
+    public List<AssociatedComponent> getRemovedComponents() {
+        return removedComponents;
+    }
+
+    public void setRemovedComponents(List<AssociatedComponent> removedComponents) {
+        this.removedComponents = removedComponents;
+    }
+
+    @Override
+    public String toString() {
+        return "TagPatch{attributes=" + attributes + ", removedAttributes=" + removedAttributes + ", addedComponents="
+                + addedComponents + ", removedComponents=" + removedComponents + '}';
+    }
+}
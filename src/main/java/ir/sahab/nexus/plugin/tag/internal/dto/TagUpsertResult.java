@@ -0,0 +1,66 @@
+package ir.sahab.nexus.plugin.tag.internal.dto;
+
+/**
+ * Holds outcome of creating or updating a single tag in a bulk request.
+ */
+public class TagUpsertResult {
+
+    public enum Outcome {
+        CREATED,
+        UPDATED,
+        /**
+         * Tag definition is not valid, so it's not written.
+         */
+        INVALID,
+        /**
+         * Transaction of the chunk containing the tag is failed, so it's not written.
+         */
+        FAILED
+    }
+
+    private String name;
+    private Outcome outcome;
+    private String error;
+
+    // Used by jackson
+    public TagUpsertResult() {
+    }
+
+    public TagUpsertResult(String name, Outcome outcome, String error) {
+        this.name = name;
+        this.outcome = outcome;
+        this.error = error;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * @return reason of failure if tag is invalid or failed, otherwise null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "TagUpsertResult{name='" + name + "', outcome=" + outcome + ", error='" + error + "'}";
+    }
+}
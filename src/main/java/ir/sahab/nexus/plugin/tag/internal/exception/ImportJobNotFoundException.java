@@ -0,0 +1,15 @@
+package ir.sahab.nexus.plugin.tag.internal.exception;
+
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * This exception is thrown whenever target import job does not exists.
+ */
+public class ImportJobNotFoundException extends NotFoundException {
+
+    public ImportJobNotFoundException() {
+        super(Response.status(Status.NOT_FOUND).entity(ErrorResponse.of("Import job not found")).build());
+    }
+}
@@ -0,0 +1,20 @@
+package ir.sahab.nexus.plugin.tag.internal.exception;
+
+import ir.sahab.nexus.plugin.tag.internal.TagRestResource;
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * This exception is thrown whenever changes requested from change feed are already removed from change log, so the
+ * consumer should read all tags again and then follow changes after the last sequence number, which is returned in
+ * {@link TagRestResource#LAST_SEQUENCE_HEADER} header.
+ */
+public class TagChangesExpiredException extends ClientErrorException {
+
+    public TagChangesExpiredException(long lastSequence) {
+        super(Response.status(Status.GONE)
+                .header(TagRestResource.LAST_SEQUENCE_HEADER, lastSequence)
+                .entity(ErrorResponse.of("Requested changes are expired, all tags should be read again")).build());
+    }
+}
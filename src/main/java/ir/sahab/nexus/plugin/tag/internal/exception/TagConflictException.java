@@ -0,0 +1,16 @@
+package ir.sahab.nexus.plugin.tag.internal.exception;
+
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * This exception is thrown whenever target tag is concurrently changed, even after retries.
+ */
+public class TagConflictException extends ClientErrorException {
+
+    public TagConflictException() {
+        super(Response.status(Status.CONFLICT)
+                .entity(ErrorResponse.of("Tag is concurrently changed, try again later")).build());
+    }
+}
@@ -0,0 +1,16 @@
+package ir.sahab.nexus.plugin.tag.internal.exception;
+
+import javax.ws.rs.ClientErrorException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * This exception is thrown whenever target tag does not have the version which is expected by a conditional request.
+ */
+public class TagVersionMismatchException extends ClientErrorException {
+
+    public TagVersionMismatchException() {
+        super(Response.status(Status.PRECONDITION_FAILED)
+                .entity(ErrorResponse.of("Tag does not match the expected version")).build());
+    }
+}
@@ -0,0 +1,200 @@
+package ir.sahab.nexus.plugin.tag.internal.validation;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonatype.nexus.repository.storage.ComponentEntityAdapter.P_GROUP;
+import static org.sonatype.nexus.repository.storage.ComponentEntityAdapter.P_VERSION;
+import static org.sonatype.nexus.repository.storage.MetadataNodeEntityAdapter.P_NAME;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+import ir.sahab.nexus.plugin.tag.internal.CacheGauges;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.storage.Component;
+import org.sonatype.nexus.repository.storage.ComponentCreatedEvent;
+import org.sonatype.nexus.repository.storage.ComponentDeletedEvent;
+import org.sonatype.nexus.repository.storage.ComponentEvent;
+import org.sonatype.nexus.repository.storage.ComponentUpdatedEvent;
+import org.sonatype.nexus.repository.storage.Query;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+
+/**
+ * Checks existence of components in batch. Components are grouped by repository and existence of each group is
+ * checked by a single query in a single transaction, so cost of checking scales with the number of repositories
+ * rather than the number of components.
+ *
+ * <p>Existence of checked components, either positive or negative, is cached for a short time. Cached entries are
+ * invalidated by events of component creation and deletion, so validating the same components again costs no query.
+ * Like {@link ir.sahab.nexus.plugin.tag.internal.TagCache}, results of a query which overlapped an invalidation are
+ * not cached.
+ */
+@Named
+@Singleton
+public class ComponentExistenceChecker extends ComponentSupport implements EventAware {
+
+    private final RepositoryManager repositoryManager;
+
+    /**
+     * Existence of components keyed by their coordinates and version.
+     */
+    private final Cache<AssociatedComponent, Boolean> cache;
+
+    /**
+     * Incremented on each invalidation, guarded by lock of this object.
+     */
+    private long invalidations;
+
+    @Inject
+    public ComponentExistenceChecker(RepositoryManager repositoryManager,
+            @Named("${nexus.tag.componentCache.maxSize:-10000}") int maxSize,
+            @Named("${nexus.tag.componentCache.ttlSeconds:-300}") int ttlSeconds, MetricRegistry metricRegistry) {
+        checkArgument(maxSize >= 0, "Maximum size of component cache should not be negative");
+        checkArgument(ttlSeconds >= 0, "TTL of component cache should not be negative");
+        this.repositoryManager = repositoryManager;
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CacheGauges.register(metricRegistry, ComponentExistenceChecker.class, cache);
+    }
+
+    /**
+     * @param components components to check, which should have repository and name
+     * @return components among given components which do not exist, in the same order
+     */
+    public List<AssociatedComponent> findMissing(Collection<AssociatedComponent> components) {
+        Set<AssociatedComponent> missing = new HashSet<>();
+        List<AssociatedComponent> uncached = new ArrayList<>();
+        for (AssociatedComponent component : components) {
+            Boolean exists = cache.getIfPresent(component);
+            if (exists == null) {
+                uncached.add(component);
+            } else if (!exists) {
+                missing.add(component);
+            }
+        }
+        if (!uncached.isEmpty()) {
+            long invalidationsBeforeCheck;
+            synchronized (this) {
+                invalidationsBeforeCheck = invalidations;
+            }
+            Map<String, List<AssociatedComponent>> byRepository = uncached.stream()
+                    .collect(Collectors.groupingBy(AssociatedComponent::getRepository, LinkedHashMap::new,
+                            Collectors.toList()));
+            Set<AssociatedComponent> uncachedMissing = new HashSet<>();
+            for (Map.Entry<String, List<AssociatedComponent>> entry : byRepository.entrySet()) {
+                uncachedMissing.addAll(findMissing(entry.getKey(), entry.getValue()));
+            }
+            synchronized (this) {
+                if (invalidations == invalidationsBeforeCheck) {
+                    for (AssociatedComponent component : uncached) {
+                        cache.put(key(component), !uncachedMissing.contains(component));
+                    }
+                }
+            }
+            missing.addAll(uncachedMissing);
+        }
+        return components.stream().filter(missing::contains).collect(Collectors.toList());
+    }
+
+    private Collection<AssociatedComponent> findMissing(String repositoryName, List<AssociatedComponent> components) {
+        Repository repository = repositoryManager.get(repositoryName);
+        if (repository == null) {
+            log.info("Components {} are invalid as repository does not exists.", components);
+            return components;
+        }
+        Set<String> names = components.stream().map(AssociatedComponent::getName).collect(Collectors.toSet());
+        Set<String> groups = components.stream().map(AssociatedComponent::getGroup).collect(Collectors.toSet());
+        Set<String> versions = components.stream().map(AssociatedComponent::getVersion).collect(Collectors.toSet());
+        Query.Builder query = Query.builder().where(P_NAME + " IN ").param(names);
+        // Null values are not matched by IN operator, so groups and versions are not filtered if any of them is null
+        if (!groups.contains(null)) {
+            query.and(P_GROUP + " IN ").param(groups);
+        }
+        // Otherwise all versions of each named component would be read, which are many for e.g. snapshots
+        if (!versions.contains(null)) {
+            query.and(P_VERSION + " IN ").param(versions);
+        }
+        Set<AssociatedComponent> found = new HashSet<>();
+        try (StorageTx storageTx = repository.facet(StorageFacet.class).txSupplier().get()) {
+            storageTx.begin();
+            for (Component component : storageTx.findComponents(query.build(), Collections.singletonList(repository))) {
+                found.add(new AssociatedComponent(repositoryName, component.group(), component.name(),
+                        component.version()));
+            }
+        }
+        List<AssociatedComponent> missing =
+                components.stream().filter(component -> !found.contains(component)).collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            log.info("Components {} not found.", missing);
+        }
+        return missing;
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void on(ComponentCreatedEvent event) {
+        invalidate(event);
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void on(ComponentUpdatedEvent event) {
+        invalidate(event);
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void on(ComponentDeletedEvent event) {
+        invalidate(event);
+    }
+
+    @Subscribe
+    @AllowConcurrentEvents
+    public void on(RepositoryDeletedEvent event) {
+        String repositoryName = event.getRepository().getName();
+        synchronized (this) {
+            invalidations++;
+            cache.asMap().keySet().removeIf(component -> repositoryName.equals(component.getRepository()));
+        }
+    }
+
+    private void invalidate(ComponentEvent event) {
+        Component component = event.getComponent();
+        AssociatedComponent key = new AssociatedComponent(event.getRepositoryName(), component.group(),
+                component.name(), component.version());
+        synchronized (this) {
+            invalidations++;
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Components are mutable, so a copy of them is used as key of cache.
+     */
+    private static AssociatedComponent key(AssociatedComponent component) {
+        return new AssociatedComponent(component);
+    }
+}
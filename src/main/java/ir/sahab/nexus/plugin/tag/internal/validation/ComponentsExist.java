@@ -4,7 +4,6 @@ package ir.sahab.nexus.plugin.tag.internal.validation;
 import static java.lang.annotation.ElementType.FIELD;
 import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.PARAMETER;
-import static java.lang.annotation.ElementType.TYPE;
 
 import java.lang.annotation.Documented;
 import java.lang.annotation.Retention;
@@ -13,11 +12,14 @@ import java.lang.annotation.Target;
 import javax.validation.Constraint;
 import javax.validation.Payload;
 
-@Target({TYPE, PARAMETER, METHOD, FIELD})
+/**
+ * Validates that all components of a collection exist. Existence of components is checked in batch.
+ */
+@Target({PARAMETER, METHOD, FIELD})
 @Retention(RetentionPolicy.RUNTIME)
-@Constraint(validatedBy = ComponentExistsValidator.class)
+@Constraint(validatedBy = ComponentsExistValidator.class)
 @Documented
-public @interface ComponentExists {
+public @interface ComponentsExist {
 
     String message() default "Associated component does not exist";
 
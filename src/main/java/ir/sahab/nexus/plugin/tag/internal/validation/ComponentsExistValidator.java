@@ -0,0 +1,58 @@
+package ir.sahab.nexus.plugin.tag.internal.validation;
+
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.validation.ConstraintValidatorContext;
+import org.sonatype.nexus.validation.ConstraintValidatorSupport;
+
+@Named
+@Singleton
+public class ComponentsExistValidator
+        extends ConstraintValidatorSupport<ComponentsExist, Collection<AssociatedComponent>> {
+
+    private final ComponentExistenceChecker existenceChecker;
+
+    @Inject
+    public ComponentsExistValidator(ComponentExistenceChecker existenceChecker) {
+        this.existenceChecker = existenceChecker;
+    }
+
+    @Override
+    public boolean isValid(Collection<AssociatedComponent> value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        // Components without repository or name are reported by their own constraints
+        List<AssociatedComponent> components = value.stream()
+                .filter(Objects::nonNull)
+                .filter(component -> component.getRepository() != null && component.getName() != null)
+                .collect(Collectors.toList());
+        if (components.isEmpty()) {
+            return true;
+        }
+        List<AssociatedComponent> missing = existenceChecker.findMissing(components);
+        if (missing.isEmpty()) {
+            return true;
+        }
+        context.disableDefaultConstraintViolation();
+        for (AssociatedComponent component : missing) {
+            context.buildConstraintViolationWithTemplate(
+                    context.getDefaultConstraintMessageTemplate() + ": " + escape(component.toString()))
+                    .addConstraintViolation();
+        }
+        return false;
+    }
+
+    /**
+     * Escapes characters which are interpreted in message templates, as components are given by user.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("{", "\\{").replace("}", "\\}").replace("$", "\\$");
+    }
+}
@@ -2,31 +2,47 @@ package ir.sahab.nexus.plugin.tag;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.ImmutableMap;
+import ir.sahab.nexus.plugin.tag.internal.TagRestResource;
 import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportJobStatus;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportJobStatus.State;
 import ir.sahab.nexus.plugin.tag.internal.dto.ImportResult;
 import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange.Type;
 import ir.sahab.nexus.plugin.tag.internal.dto.TagCloneRequest;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagCount;
 import ir.sahab.nexus.plugin.tag.internal.dto.TagDefinition;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagPatch;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult.Outcome;
 import java.io.ByteArrayInputStream;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
@@ -155,6 +171,14 @@ public class IntegrationTest {
         assertEquals(1, result.size());
         assertDefinitionEquals(tagDef2, result.get(0));
 
+        // Search only by associated component
+        result = target.path("tags")
+                .queryParam("associatedComponent", component2Criterion)
+                .request()
+                .get(new GenericType<List<Tag>>() {});
+        assertTrue(result.stream().anyMatch(tag -> tag.getName().equals(tagDef2.getName())));
+        assertTrue(result.stream().noneMatch(tag -> tag.getName().equals(tagDef1.getName())));
+
         result = target.path("tags")
                 .queryParam("attribute", CHANGE_ID + ":" + "notExists")
                 .request()
@@ -188,6 +212,9 @@ public class IntegrationTest {
         assertEquals(tagsToImport.size(), importResult.getTotal());
         // tag2 already exists, so we expect that 1 tag would be created.
         assertEquals(1, importResult.getCreated());
+        assertEquals(1, importResult.getSkipped());
+        assertEquals(0, importResult.getFailed());
+        assertEquals(1, importResult.getChunks().size());
         response.close();
         retrieved = target.path("tags/" + tagDef1.getName()).request().get(Tag.class);
         assertEquals(putResponseTag, retrieved);
@@ -221,6 +248,463 @@ public class IntegrationTest {
         assertEquals(tag.getComponents(), cloned.getComponents());
     }
 
+    @Test
+    public void testPaging() {
+        String pagingAttribute = randomAlphanumeric(10);
+        for (int i = 0; i < 3; i++) {
+            addTagAndAssert(new TagDefinition(randomAlphanumeric(5), singletonMap("paging", pagingAttribute),
+                    singletonList(component1)));
+        }
+        WebTarget search = target.path("tags")
+                .queryParam("attribute", "paging:" + pagingAttribute)
+                .queryParam("limit", 2);
+        Response response = search.request().get();
+        assertEquals(Status.OK.getStatusCode(), response.getStatus());
+        List<Tag> firstPage = response.readEntity(new GenericType<List<Tag>>() {});
+        assertEquals(2, firstPage.size());
+        String continuationToken = response.getHeaderString(TagRestResource.CONTINUATION_TOKEN_HEADER);
+        assertNotNull(continuationToken);
+        response.close();
+
+        response = search.queryParam("continuationToken", continuationToken).request().get();
+        assertEquals(Status.OK.getStatusCode(), response.getStatus());
+        List<Tag> secondPage = response.readEntity(new GenericType<List<Tag>>() {});
+        assertEquals(1, secondPage.size());
+        assertNull(response.getHeaderString(TagRestResource.CONTINUATION_TOKEN_HEADER));
+        assertTrue(firstPage.stream().noneMatch(tag -> tag.getName().equals(secondPage.get(0).getName())));
+        response.close();
+
+        response = search.queryParam("continuationToken", "invalid").request().get();
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+
+        // Streaming
+        WebTarget streamingSearch = target.path("tags").queryParam("attribute", "paging:" + pagingAttribute);
+        List<Tag> streamed = streamingSearch.queryParam("stream", true)
+                .request()
+                .get(new GenericType<List<Tag>>() {});
+        assertEquals(3, streamed.size());
+        String ndjson = streamingSearch.request(TagRestResource.APPLICATION_NDJSON).get(String.class);
+        assertEquals(3, ndjson.split("\n").length);
+    }
+
+    @Test
+    public void testFieldsProjection() {
+        String projectionAttribute = randomAlphanumeric(10);
+        for (int i = 0; i < 3; i++) {
+            addTagAndAssert(new TagDefinition(randomAlphanumeric(5), singletonMap("projection", projectionAttribute),
+                    singletonList(component1)));
+        }
+        WebTarget search = target.path("tags")
+                .queryParam("attribute", "projection:" + projectionAttribute)
+                .queryParam("fields", "name,attributes");
+        List<Tag> tags = search.request().get(new GenericType<List<Tag>>() {});
+        assertEquals(3, tags.size());
+        for (Tag tag : tags) {
+            assertNotNull(tag.getName());
+            assertEquals(singletonMap("projection", projectionAttribute), tag.getAttributes());
+            assertNull(tag.getComponents());
+            assertNull(tag.getLastUpdated());
+        }
+
+        // Paging by projected tags
+        Response response = search.queryParam("limit", 2).request().get();
+        assertEquals(Status.OK.getStatusCode(), response.getStatus());
+        List<Tag> firstPage = response.readEntity(new GenericType<List<Tag>>() {});
+        String continuationToken = response.getHeaderString(TagRestResource.CONTINUATION_TOKEN_HEADER);
+        response.close();
+        List<Tag> secondPage = search.queryParam("limit", 2)
+                .queryParam("continuationToken", continuationToken)
+                .request()
+                .get(new GenericType<List<Tag>>() {});
+        assertEquals(2, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertEquals(tags.get(2).getName(), secondPage.get(0).getName());
+
+        response = target.path("tags").queryParam("fields", "name,unknown").request().get();
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
+    @Test
+    public void testImportJob() throws InterruptedException {
+        String name = randomAlphanumeric(10);
+        String ndjson = "{\"name\": \"" + name + "\", \"attributes\": {}, \"components\": [],"
+                + " \"firstCreated\": \"2020-10-21T06:26:27.236+0000\","
+                + " \"lastUpdated\": \"2020-10-21T06:26:27.236+0000\"}\n";
+        Response response = target.path("import-jobs")
+                .request()
+                .post(Entity.entity(ndjson, TagRestResource.APPLICATION_NDJSON));
+        assertEquals(Status.ACCEPTED.getStatusCode(), response.getStatus());
+        ImportJobStatus status = response.readEntity(ImportJobStatus.class);
+        assertNotNull(response.getLocation());
+        response.close();
+
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (status.getState() != State.COMPLETED && status.getState() != State.FAILED
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+            status = target.path("import-jobs/" + status.getId()).request().get(ImportJobStatus.class);
+        }
+        assertEquals(State.COMPLETED, status.getState());
+        assertEquals(1, status.getProcessed());
+        assertEquals(1, status.getCreated());
+        assertEquals(1, status.getResult().getCreated());
+        assertEquals(name, target.path("tags/" + name).request().get(Tag.class).getName());
+
+        response = target.path("import-jobs/not-existing").request().get();
+        assertEquals(Status.NOT_FOUND.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
+    @Test
+    public void testConditionalUpdate() {
+        TagDefinition definition = new TagDefinition(randomAlphanumeric(10), createAttributes(), emptyList());
+        addTagAndAssert(definition);
+        Response response = target.path("tags/" + definition.getName()).request().get();
+        EntityTag entityTag = response.getEntityTag();
+        assertNotNull(entityTag);
+        response.close();
+
+        definition.getAttributes().put(STATUS, "successful");
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .header(HttpHeaders.IF_MATCH, entityTag.toString())
+                .put(Entity.entity(definition, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Family.SUCCESSFUL, response.getStatusInfo().getFamily());
+        EntityTag newEntityTag = response.getEntityTag();
+        assertNotNull(newEntityTag);
+        assertFalse(entityTag.equals(newEntityTag));
+        response.close();
+
+        // Tag is changed since the first entity tag
+        definition.getAttributes().put(STATUS, "failed");
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .header(HttpHeaders.IF_MATCH, entityTag.toString())
+                .put(Entity.entity(definition, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+        response.close();
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .header(HttpHeaders.IF_MATCH, entityTag.toString())
+                .delete();
+        assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+        response.close();
+        assertEquals("successful",
+                target.path("tags/" + definition.getName()).request().get(Tag.class).getAttributes().get(STATUS));
+
+        // Any version of an existing tag matches *
+        definition.getAttributes().put(STATUS, "in progress");
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .header(HttpHeaders.IF_MATCH, "*")
+                .put(Entity.entity(definition, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Family.SUCCESSFUL, response.getStatusInfo().getFamily());
+        newEntityTag = response.getEntityTag();
+        response.close();
+
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .header(HttpHeaders.IF_MATCH, newEntityTag.toString())
+                .delete();
+        assertEquals(Family.SUCCESSFUL, response.getStatusInfo().getFamily());
+        response.close();
+
+        // A missing tag does not match *
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .header(HttpHeaders.IF_MATCH, "*")
+                .put(Entity.entity(definition, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+        response.close();
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .header(HttpHeaders.IF_MATCH, "*")
+                .delete();
+        assertEquals(Status.PRECONDITION_FAILED.getStatusCode(), response.getStatus());
+        response.close();
+        assertEquals(Status.NOT_FOUND.getStatusCode(),
+                target.path("tags/" + definition.getName()).request().get().getStatus());
+    }
+
+    @Test
+    public void testTimeFilters() throws InterruptedException {
+        String timeAttribute = randomAlphanumeric(10);
+        Tag oldTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), singletonMap("time", timeAttribute),
+                singletonList(component1)));
+        Thread.sleep(10);
+        Tag newTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), singletonMap("time", timeAttribute),
+                singletonList(component1)));
+
+        WebTarget search = target.path("tags").queryParam("attribute", "time:" + timeAttribute);
+        List<Tag> tags = search.queryParam("updatedAfter", oldTag.getLastUpdated().getTime())
+                .request()
+                .get(new GenericType<List<Tag>>() {});
+        assertEquals(singletonList(newTag.getName()), tags.stream().map(Tag::getName).collect(Collectors.toList()));
+        tags = search.queryParam("updatedBefore", newTag.getLastUpdated().getTime())
+                .request()
+                .get(new GenericType<List<Tag>>() {});
+        assertEquals(singletonList(oldTag.getName()), tags.stream().map(Tag::getName).collect(Collectors.toList()));
+        tags = search.queryParam("createdAfter", newTag.getFirstCreated().getTime())
+                .request()
+                .get(new GenericType<List<Tag>>() {});
+        assertTrue(tags.isEmpty());
+
+        Response response = search.queryParam("updatedAfter", "yesterday").request().get();
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
+    @Test
+    public void testAttributePredicates() {
+        String group = randomAlphanumeric(10);
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("group", group);
+        attributes.put("build", "1199");
+        attributes.put("branch", "release/1.0");
+        Tag oldTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), attributes, singletonList(component1)));
+        attributes.put("build", "1200");
+        attributes.put("branch", "master");
+        attributes.put("promoted", "true");
+        Tag newTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), attributes, singletonList(component1)));
+
+        WebTarget search = target.path("tags").queryParam("attribute", "group:" + group);
+        assertEquals(singletonList(newTag.getName()),
+                searchNames(search.queryParam("attributeMatch", "build:>=1200")));
+        assertEquals(singletonList(oldTag.getName()), searchNames(search.queryParam("attributeMatch", "build:<1200")));
+        assertEquals(singletonList(oldTag.getName()),
+                searchNames(search.queryParam("attributeMatch", "branch:release/*")));
+        assertEquals(singletonList(newTag.getName()), searchNames(search.queryParam("hasAttribute", "promoted")));
+        assertTrue(searchNames(search.queryParam("attributeMatch", "branch:>1")).isEmpty());
+
+        Response response = search.queryParam("attributeMatch", "build:>abc").request().get();
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+
+        // Values of attribute parameter are matched exactly, even if they look like ranges or prefixes
+        attributes.put("branch", "release/*");
+        attributes.put("build", ">abc");
+        Tag literalTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), attributes,
+                singletonList(component1)));
+        assertEquals(singletonList(literalTag.getName()), searchNames(search.queryParam("attribute", "build:>abc")));
+        assertEquals(singletonList(literalTag.getName()),
+                searchNames(search.queryParam("attribute", "branch:release/*")));
+    }
+
+    @Test
+    public void testFilter() {
+        String group = randomAlphanumeric(10);
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("group", group);
+        attributes.put("status", "successful");
+        Tag successfulTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), attributes,
+                singletonList(component1)));
+        attributes.put("status", "failed");
+        Tag failedTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), attributes,
+                singletonList(component2)));
+        attributes.put("status", "in progress");
+        Tag runningTag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), attributes,
+                singletonList(component1)));
+
+        WebTarget search = target.path("tags").queryParam("attribute", "group:" + group);
+        assertEquals(new HashSet<>(Arrays.asList(successfulTag.getName(), failedTag.getName())),
+                new HashSet<>(searchNames(search.queryParam("filter", "status:successful or status:failed"))));
+        String component1Term = "component(" + componentCriterion(component1) + ")";
+        assertEquals(singletonList(runningTag.getName()),
+                searchNames(search.queryParam("filter", "status:\"in progress\" and " + component1Term)));
+        assertEquals(singletonList(failedTag.getName()),
+                searchNames(search.queryParam("filter", "not " + component1Term)));
+
+        Response response = search.queryParam("filter", "(status:failed").request().get();
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
+    @Test
+    public void testCount() {
+        String group = randomAlphanumeric(10);
+        for (String project : Arrays.asList("p1", "p1", "p2")) {
+            Map<String, String> attributes = new HashMap<>();
+            attributes.put("group", group);
+            attributes.put("project", project);
+            addTagAndAssert(new TagDefinition(randomAlphanumeric(10), attributes, singletonList(component1)));
+        }
+        addTagAndAssert(new TagDefinition(randomAlphanumeric(10), singletonMap("group", group),
+                singletonList(component1)));
+
+        WebTarget count = target.path("tag-counts").queryParam("attribute", "group:" + group);
+        TagCount result = count.request().get(TagCount.class);
+        assertEquals(4, result.getCount());
+        assertNull(result.getGroups());
+
+        result = count.queryParam("groupBy", "project").request().get(TagCount.class);
+        assertEquals(4, result.getCount());
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("p1", 2L);
+        expected.put("p2", 1L);
+        assertEquals(expected, result.getGroups());
+        assertEquals("p1", result.getGroups().keySet().iterator().next());
+
+        result = count.queryParam("filter", "project:p2 or not has(project)").request().get(TagCount.class);
+        assertEquals(2, result.getCount());
+    }
+
+    @Test
+    public void testMavenVersionRange() {
+        AssociatedComponent component = new AssociatedComponent(REPO_MAVEN_RELEASES, randomAlphabetic(5), "comp4",
+                "2.0.0-rc1");
+        uploadMavenComponent(component);
+        Tag tag = addTagAndAssert(new TagDefinition(randomAlphanumeric(10), new HashMap<>(),
+                singletonList(component)));
+
+        String coordinates = component.getRepository() + ':' + component.getGroup() + ':' + component.getName();
+        for (String range : Arrays.asList(" > 2.0-beta-2", " < 2.0", " >= 2.0.0.rc1", " =< 2-SNAPSHOT")) {
+            assertEquals(range, singletonList(tag.getName()),
+                    searchNames(target.path("tags").queryParam("associatedComponent", coordinates + range)));
+        }
+        assertTrue(searchNames(target.path("tags").queryParam("associatedComponent", coordinates + " >= 2"))
+                .isEmpty());
+        assertTrue(searchNames(target.path("tags").queryParam("filter", "component(" + coordinates + " > 2.0)"))
+                .isEmpty());
+    }
+
+    private static String componentCriterion(AssociatedComponent component) {
+        return component.getRepository() + ':' + (component.getGroup() == null ? "" : component.getGroup()) + ':'
+                + component.getName() + " = " + component.getVersion();
+    }
+
+    private static List<String> searchNames(WebTarget search) {
+        return search.request()
+                .get(new GenericType<List<Tag>>() {})
+                .stream()
+                .map(Tag::getName)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testChangeFeed() {
+        Response response = target.path("tag-changes").queryParam("since", 0).request().get();
+        assertEquals(Status.OK.getStatusCode(), response.getStatus());
+        long since = Long.parseLong(response.getHeaderString(TagRestResource.LAST_SEQUENCE_HEADER));
+        response.close();
+
+        TagDefinition definition = new TagDefinition(randomAlphanumeric(10), createAttributes(),
+                singletonList(component1));
+        addTagAndAssert(definition);
+        response = target.path("tags/" + definition.getName()).request().delete();
+        assertEquals(Family.SUCCESSFUL, response.getStatusInfo().getFamily());
+        response.close();
+
+        List<TagChange> changes = target.path("tag-changes")
+                .queryParam("since", since)
+                .request()
+                .get(new GenericType<List<TagChange>>() {});
+        assertEquals(2, changes.size());
+        assertEquals(since + 1, changes.get(0).getSequence());
+        assertEquals(Type.CREATED, changes.get(0).getType());
+        assertEquals(definition.getName(), changes.get(0).getName());
+        assertEquals(since + 2, changes.get(1).getSequence());
+        assertEquals(Type.DELETED, changes.get(1).getType());
+
+        // Caught up, so request waits until timeout
+        long start = System.currentTimeMillis();
+        changes = target.path("tag-changes")
+                .queryParam("since", since + 2)
+                .queryParam("waitSeconds", 1)
+                .request()
+                .get(new GenericType<List<TagChange>>() {});
+        assertTrue(changes.isEmpty());
+        assertTrue(System.currentTimeMillis() - start >= 1000);
+
+        response = target.path("tag-changes").queryParam("limit", 0).request().get();
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
+    @Test
+    public void testPatch() {
+        TagDefinition definition =
+                new TagDefinition(randomAlphanumeric(10), createAttributes(), Arrays.asList(component1, component2));
+        Tag created = addTagAndAssert(definition);
+
+        TagPatch patch = new TagPatch(singletonMap(STATUS, "successful"), new HashSet<>(singletonList(CHANGE_ID)),
+                singletonList(component3), singletonList(component1));
+        Response response = target.path("tags/" + definition.getName())
+                .request()
+                .method("PATCH", Entity.entity(patch, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Family.SUCCESSFUL, response.getStatusInfo().getFamily());
+        Tag patched = response.readEntity(Tag.class);
+        Map<String, String> expectedAttributes = new HashMap<>(definition.getAttributes());
+        expectedAttributes.remove(CHANGE_ID);
+        expectedAttributes.put(STATUS, "successful");
+        assertEquals(expectedAttributes, patched.getAttributes());
+        assertEquals(Arrays.asList(component2, component3), patched.getComponents());
+        assertEquals(created.getFirstCreated(), patched.getFirstCreated());
+        assertTrue(patched.getLastUpdated().after(created.getLastUpdated()));
+
+        // Index of components is updated
+        List<Tag> found = target.path("tags")
+                .queryParam("associatedComponent", component1.getRepository() + ":" + component1.getGroup() + ":"
+                        + component1.getName())
+                .request()
+                .get(new GenericType<List<Tag>>() {});
+        assertFalse(found.stream().anyMatch(tag -> tag.getName().equals(definition.getName())));
+
+        AssociatedComponent notExistingComponent =
+                new AssociatedComponent(REPO_MAVEN_RELEASES, component1.getGroup(), "not-exist-artifact", "1");
+        TagPatch invalidPatch = new TagPatch(emptyMap(), emptySet(), singletonList(notExistingComponent), emptyList());
+        response = target.path("tags/" + definition.getName())
+                .request()
+                .method("PATCH", Entity.entity(invalidPatch, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+
+        response = target.path("tags/" + randomAlphanumeric(10))
+                .request()
+                .method("PATCH", Entity.entity(patch, MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Status.NOT_FOUND.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
+    @Test
+    public void testBulkAddOrUpdate() {
+        TagDefinition existing =
+                new TagDefinition(randomAlphanumeric(10), createAttributes(), singletonList(component1));
+        addTagAndAssert(existing);
+        existing.getAttributes().put("status", "updated");
+        TagDefinition created = new TagDefinition(randomAlphanumeric(10), createAttributes(),
+                Arrays.asList(component1, component2));
+        AssociatedComponent notExistingComponent =
+                new AssociatedComponent(REPO_MAVEN_RELEASES, component1.getGroup(), "not-exist-artifact", "1");
+        TagDefinition invalid =
+                new TagDefinition(randomAlphanumeric(10), createAttributes(), singletonList(notExistingComponent));
+
+        List<TagUpsertResult> results = target.path("tags")
+                .request()
+                .put(Entity.entity(Arrays.asList(existing, invalid, created), MediaType.APPLICATION_JSON_TYPE),
+                        new GenericType<List<TagUpsertResult>>() {});
+        assertEquals(3, results.size());
+        assertEquals(existing.getName(), results.get(0).getName());
+        assertEquals(Outcome.UPDATED, results.get(0).getOutcome());
+        assertEquals(Outcome.INVALID, results.get(1).getOutcome());
+        assertNotNull(results.get(1).getError());
+        assertEquals(Outcome.CREATED, results.get(2).getOutcome());
+        assertNull(results.get(2).getError());
+
+        assertDefinitionEquals(existing, target.path("tags/" + existing.getName()).request().get(Tag.class));
+        assertDefinitionEquals(created, target.path("tags/" + created.getName()).request().get(Tag.class));
+        Response response = target.path("tags/" + invalid.getName()).request().get();
+        assertEquals(Status.NOT_FOUND.getStatusCode(), response.getStatus());
+        response.close();
+
+        response = target.path("tags")
+                .request()
+                .put(Entity.entity(Arrays.asList(created, created), MediaType.APPLICATION_JSON_TYPE));
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
+    }
+
     @Test
     public void testValidation() {
         TagDefinition nullName = new TagDefinition(null, emptyMap(), emptyList());
@@ -245,6 +729,15 @@ public class IntegrationTest {
         response = addTag(withNonExistingComponent);
         assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
         response.close();
+
+        // Components of a repository are validated together
+        AssociatedComponent notExistingComponent =
+                new AssociatedComponent(REPO_MAVEN_RELEASES, component1.getGroup(), "not-exist-artifact", "1");
+        TagDefinition withSomeNonExistingComponents =
+                new TagDefinition("name", emptyMap(), Arrays.asList(component1, notExistingComponent));
+        response = addTag(withSomeNonExistingComponents);
+        assertEquals(Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        response.close();
     }
 
     private Tag addTagAndAssert(TagDefinition tagDefinition) {
@@ -0,0 +1,287 @@
+package ir.sahab.nexus.plugin.tag;
+
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
+import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import ir.sahab.nexus.plugin.tag.internal.dto.ImportResult;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagCloneRequest;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagDefinition;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status.Family;
+import org.jboss.resteasy.client.jaxrs.BasicAuthentication;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataOutput;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonatype.nexus.rest.APIConstants;
+import org.testcontainers.containers.GenericContainer;
+
+/**
+ * Generates load on REST API of plugin deployed in a local nexus container. It seeds tags associated with uploaded
+ * components, then drives a mix of read and write requests from concurrent clients for a while. Latency percentiles
+ * and throughput of each endpoint are written to a JSON report. It's run by load-test profile and can be configured
+ * by following system properties:
+ * <ul>
+ *     <li>loadTest.tags: number of seeded tags</li>
+ *     <li>loadTest.components: number of components of each tag</li>
+ *     <li>loadTest.concurrency: number of concurrent clients</li>
+ *     <li>loadTest.durationSeconds: duration of load generation</li>
+ *     <li>loadTest.report: path of report file</li>
+ * </ul>
+ */
+public class LoadTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String USERNAME = "admin";
+    private static final String PASSWORD = "admin123";
+    private static final String REPO_MAVEN_RELEASES = "maven-releases";
+
+    private static final int TAG_COUNT = Integer.getInteger("loadTest.tags", 1000);
+    private static final int COMPONENT_COUNT = Integer.getInteger("loadTest.components", 10);
+    private static final int CONCURRENCY = Integer.getInteger("loadTest.concurrency", 8);
+    private static final int DURATION_SECONDS = Integer.getInteger("loadTest.durationSeconds", 60);
+    private static final String REPORT_PATH = System.getProperty("loadTest.report", "target/load-test-report.json");
+
+    /**
+     * Number of tags imported by each import request.
+     */
+    private static final int IMPORT_BATCH_SIZE = 20;
+
+    @ClassRule
+    public static GenericContainer<?> container =
+            NexusContainerUtil.createTestContainer(System.getProperty("nexusVersion"));
+
+    private static Client client;
+    private static WebTarget target;
+
+    private static final List<AssociatedComponent> components = new ArrayList<>();
+    private static final List<String> tagNames = Collections.synchronizedList(new ArrayList<>());
+    private static final String projectAttribute = randomAlphanumeric(10);
+
+    private final Map<String, List<Long>> latencies = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> errors = new ConcurrentHashMap<>();
+
+    @BeforeClass
+    public static void setup() {
+        client = new ResteasyClientBuilder()
+                .connectionPoolSize(CONCURRENCY)
+                .maxPooledPerRoute(CONCURRENCY)
+                .build()
+                .register(new BasicAuthentication(USERNAME, PASSWORD));
+        target = client.target(NexusContainerUtil.getNexusBaseUrl(container))
+                .path("/service/rest")
+                .path(APIConstants.V1_API_PREFIX);
+        String group = randomAlphabetic(5);
+        for (int i = 0; i < COMPONENT_COUNT; i++) {
+            AssociatedComponent component = new AssociatedComponent(REPO_MAVEN_RELEASES, group, "comp" + i, "1." + i);
+            uploadMavenComponent(component);
+            components.add(component);
+        }
+        seedTags();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        client.close();
+    }
+
+    private static void uploadMavenComponent(AssociatedComponent component) {
+        MultipartFormDataOutput output = new MultipartFormDataOutput();
+        output.addFormData("maven2.groupId", component.getGroup(), MediaType.TEXT_PLAIN_TYPE);
+        output.addFormData("maven2.artifactId", component.getName(), MediaType.TEXT_PLAIN_TYPE);
+        output.addFormData("maven2.version", component.getVersion(), MediaType.TEXT_PLAIN_TYPE);
+        output.addFormData("maven2.asset1.extension", "jar", MediaType.TEXT_PLAIN_TYPE);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(randomAlphabetic(5).getBytes());
+        output.addFormData("maven2.asset1", inputStream, MediaType.APPLICATION_OCTET_STREAM_TYPE,
+                "test-maven-artifact.jar");
+
+        Response response = target.path("components").queryParam("repository", component.getRepository())
+                .request()
+                .post(Entity.entity(output, MediaType.MULTIPART_FORM_DATA_TYPE));
+        assertEquals(Family.SUCCESSFUL, response.getStatusInfo().getFamily());
+        response.close();
+    }
+
+    private static void seedTags() {
+        logger.info("Seeding {} tags with {} components.", TAG_COUNT, COMPONENT_COUNT);
+        List<Tag> batch = new ArrayList<>();
+        for (int i = 0; i < TAG_COUNT; i++) {
+            batch.add(newTag(randomAlphanumeric(12)));
+            if (batch.size() == 1000 || i == TAG_COUNT - 1) {
+                ImportResult result = target.path("import-tags")
+                        .request()
+                        .post(Entity.entity(batch, MediaType.APPLICATION_JSON_TYPE), ImportResult.class);
+                assertEquals(batch.size(), result.getCreated());
+                batch.forEach(tag -> tagNames.add(tag.getName()));
+                batch.clear();
+            }
+        }
+    }
+
+    private static Tag newTag(String name) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("project", projectAttribute);
+        attributes.put("status", ThreadLocalRandom.current().nextBoolean() ? "successful" : "failed");
+        Date date = new Date();
+        return new Tag(name, attributes, new ArrayList<>(components), date, date);
+    }
+
+    private static String randomTagName() {
+        return tagNames.get(ThreadLocalRandom.current().nextInt(tagNames.size()));
+    }
+
+    @Test
+    public void generateLoad() throws Exception {
+        logger.info("Generating load by {} clients for {} seconds.", CONCURRENCY, DURATION_SECONDS);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(DURATION_SECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    sendRandomRequest();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(DURATION_SECONDS + 60, TimeUnit.SECONDS));
+        writeReport();
+    }
+
+    /**
+     * Sends a request chosen by weights which resemble usage of pipelines: mostly reads, some updates of tag status
+     * and occasional clones and imports.
+     */
+    private void sendRandomRequest() {
+        int dice = ThreadLocalRandom.current().nextInt(100);
+        if (dice < 50) {
+            measure("getByName", () -> target.path("tags/" + randomTagName()).request().get());
+        } else if (dice < 60) {
+            measure("listByAttribute", () -> target.path("tags")
+                    .queryParam("attribute", "project:" + projectAttribute)
+                    .queryParam("attribute", "status:successful")
+                    .queryParam("limit", 100)
+                    .request()
+                    .get());
+        } else if (dice < 70) {
+            AssociatedComponent component =
+                    components.get(ThreadLocalRandom.current().nextInt(components.size()));
+            measure("listByComponent", () -> target.path("tags")
+                    .queryParam("associatedComponent", component.getRepository() + ':' + component.getGroup() + ':'
+                            + component.getName() + " = " + component.getVersion())
+                    .queryParam("limit", 100)
+                    .request()
+                    .get());
+        } else if (dice < 85) {
+            String name = randomTagName();
+            TagDefinition definition = newTag(name);
+            measure("addOrUpdate", () -> target.path("tags/" + name)
+                    .request()
+                    .put(Entity.entity(definition, MediaType.APPLICATION_JSON_TYPE)));
+        } else if (dice < 95) {
+            String newName = randomAlphanumeric(12);
+            TagCloneRequest request = new TagCloneRequest(randomTagName(), Collections.singletonMap("cloned", "true"));
+            if (measure("clone", () -> target.path("tags/" + newName)
+                    .request()
+                    .post(Entity.entity(request, MediaType.APPLICATION_JSON_TYPE)))) {
+                tagNames.add(newName);
+            }
+        } else {
+            List<Tag> tags = new ArrayList<>();
+            for (int i = 0; i < IMPORT_BATCH_SIZE; i++) {
+                tags.add(newTag(randomAlphanumeric(12)));
+            }
+            measure("import", () -> target.path("import-tags")
+                    .request()
+                    .post(Entity.entity(tags, MediaType.APPLICATION_JSON_TYPE)));
+        }
+    }
+
+    /**
+     * @return true if request is successful
+     */
+    private boolean measure(String endpoint, Supplier<Response> request) {
+        long start = System.nanoTime();
+        boolean successful;
+        try {
+            Response response = request.get();
+            // Response is read completely, so the latency includes transferring it
+            response.readEntity(String.class);
+            successful = response.getStatusInfo().getFamily() == Family.SUCCESSFUL;
+            response.close();
+        } catch (RuntimeException e) {
+            logger.warn("Request to {} failed.", endpoint, e);
+            successful = false;
+        }
+        long latency = System.nanoTime() - start;
+        latencies.computeIfAbsent(endpoint, key -> Collections.synchronizedList(new ArrayList<>())).add(latency);
+        if (!successful) {
+            errors.computeIfAbsent(endpoint, key -> new AtomicInteger()).incrementAndGet();
+        }
+        return successful;
+    }
+
+    private void writeReport() throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("tags", TAG_COUNT);
+        report.put("componentsPerTag", COMPONENT_COUNT);
+        report.put("concurrency", CONCURRENCY);
+        report.put("durationSeconds", DURATION_SECONDS);
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Long>> entry : new HashMap<>(latencies).entrySet()) {
+            List<Long> sorted = new ArrayList<>(entry.getValue());
+            Collections.sort(sorted);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", sorted.size());
+            stats.put("errors", errors.getOrDefault(entry.getKey(), new AtomicInteger()).get());
+            stats.put("throughputPerSecond", (double) sorted.size() / DURATION_SECONDS);
+            stats.put("p50Millis", percentile(sorted, 50));
+            stats.put("p99Millis", percentile(sorted, 99));
+            stats.put("maxMillis", percentile(sorted, 100));
+            endpoints.put(entry.getKey(), stats);
+        }
+        report.put("endpoints", endpoints);
+        File file = new File(REPORT_PATH);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        logger.info("Load test report is written to {}: {}", file.getAbsolutePath(), endpoints);
+    }
+
+    /**
+     * @param sorted sorted latencies in nanoseconds
+     * @return nearest-rank percentile of latencies in milliseconds
+     */
+    private static double percentile(List<Long> sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.size());
+        return sorted.get(Math.max(rank, 1) - 1) / 1e6;
+    }
+}
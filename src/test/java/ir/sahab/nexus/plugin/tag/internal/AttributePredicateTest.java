@@ -0,0 +1,56 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.*;
+
+import ir.sahab.nexus.plugin.tag.internal.AttributePredicate.Operator;
+import org.junit.Test;
+
+public class AttributePredicateTest {
+
+    @Test
+    public void testParse() {
+        AttributePredicate predicate = AttributePredicate.parse("build", ">=1200");
+        assertEquals("build", predicate.getKey());
+        assertEquals(Operator.GTE, predicate.getOperator());
+        assertEquals("1200", predicate.getValue());
+
+        predicate = AttributePredicate.parse("version", "< 1.10");
+        assertEquals(Operator.LT, predicate.getOperator());
+        assertEquals("1.10", predicate.getValue());
+
+        predicate = AttributePredicate.parse("branch", "release/*");
+        assertEquals(Operator.PREFIX, predicate.getOperator());
+        assertEquals("release/", predicate.getValue());
+
+        predicate = AttributePredicate.parse("branch", "master");
+        assertEquals(Operator.EQ, predicate.getOperator());
+        assertEquals("master", predicate.getValue());
+
+        predicate = AttributePredicate.exists("promoted");
+        assertEquals(Operator.EXISTS, predicate.getOperator());
+        assertNull(predicate.getValue());
+    }
+
+    @Test
+    public void testEqualTo() {
+        // Values which look like ranges or prefixes are matched exactly
+        for (String value : new String[] {">abc", "<1", ">=1.2", "a*"}) {
+            AttributePredicate predicate = AttributePredicate.equalTo("key", value);
+            assertEquals(Operator.EQ, predicate.getOperator());
+            assertEquals(value, predicate.getValue());
+            assertEquals("key:" + value, predicate.toString());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseInvalidRange() {
+        AttributePredicate.parse("build", ">abc");
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("build:<=12", AttributePredicate.parse("build", "<= 12").toString());
+        assertEquals("branch:release/*", AttributePredicate.parse("branch", "release/*").toString());
+        assertEquals("promoted", AttributePredicate.exists("promoted").toString());
+    }
+}
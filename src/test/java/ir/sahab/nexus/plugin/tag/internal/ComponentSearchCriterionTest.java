@@ -33,6 +33,46 @@ public class ComponentSearchCriterionTest {
         assertNull(criterion.getVersionValue());
     }
 
+    @Test
+    public void testParseCoordinates() {
+        // Coordinates are separated by the last two colons, the same as the greedy pattern used to parse them
+        ComponentSearchCriterion criterion = ComponentSearchCriterion.parse("r1:r2:g1:n1\t=<\t1");
+        assertEquals("r1:r2", criterion.getRepository());
+        assertEquals("g1", criterion.getGroup());
+        assertEquals("n1", criterion.getName());
+        assertEquals(Operator.LTE, criterion.getVersionOperator());
+
+        criterion = ComponentSearchCriterion.parse("r1::n1 = 1.0-SNAPSHOT");
+        assertNull(criterion.getGroup());
+        assertNull(criterion.getVersionKey(VersionScheme.NUMERIC));
+        assertEquals("1.0-SNAPSHOT", criterion.getVersionValue());
+    }
+
+    @Test
+    public void testParseInvalid() {
+        for (String expression : new String[] {"", "r1", "r1:n1", ":g1:n1", "r1:g1:", " r1:g1:n1", "r1:g1:n1 ",
+                "r1:g1:n1 >", "r1:g1:n1 >1", "r1:g1:n1 => 1", "r1:g1:n1 > 1 2", "r1:g1:n1 > 1 "}) {
+            try {
+                ComponentSearchCriterion.parseUncached(expression);
+                fail("Criterion should be invalid: " + expression);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testParseCached() {
+        assertSame(ComponentSearchCriterion.parse("r1:g1:n1 > 1"), ComponentSearchCriterion.parse("r1:g1:n1 > 1"));
+    }
+
+    @Test
+    public void testToString() {
+        assertEquals("r1:g1:n1 > 1", ComponentSearchCriterion.parse("r1:g1:n1   >  1").toString());
+        assertEquals("r2::n2 =< 10.1", ComponentSearchCriterion.parse("r2::n2 =< 10.1").toString());
+        assertEquals("r3:g3:n3", ComponentSearchCriterion.parse("r3:g3:n3").toString());
+    }
+
     @Test
     public void testMatches() {
         ComponentSearchCriterion criterion = ComponentSearchCriterion.parse("r1:g1:n1 > 1");
@@ -67,4 +107,20 @@ public class ComponentSearchCriterionTest {
         assertTrue(new Version("1.1").compare(Operator.GT, new Version("1.0.0")));
         assertTrue(new Version("1.0").compare(Operator.LT, new Version("1.0.1")));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testVersionKey() {
+        assertEquals("0000000001.0000000010.0000000000", Version.toKey("1.10.0"));
+        assertEquals("0000000001.0000000002", Version.toKey("001_2"));
+        assertTrue(Version.toKey("1.0").compareTo(Version.toKey("1.0.0")) < 0);
+        assertTrue(Version.toKey("1.10").compareTo(Version.toKey("1.9.1")) > 0);
+        assertTrue(Version.toKey("2").compareTo(Version.toKey("10")) < 0);
+
+        assertNull(Version.toKey(null));
+        assertNull(Version.toKey(""));
+        assertNull(Version.toKey("1..0"));
+        assertNull(Version.toKey("1.0."));
+        assertNull(Version.toKey("1.0-SNAPSHOT"));
+        assertNull(Version.toKey("12345678901"));
+    }
+}
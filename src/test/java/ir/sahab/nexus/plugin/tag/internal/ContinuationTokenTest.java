@@ -0,0 +1,29 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.orientechnologies.orient.core.id.ORecordId;
+import java.util.Date;
+import org.junit.Test;
+
+public class ContinuationTokenTest {
+
+    @Test
+    public void testEncodeDecode() {
+        ContinuationToken token = new ContinuationToken(new Date(1603261587236L), new ORecordId(12, 34));
+        ContinuationToken decoded = ContinuationToken.decode(token.encode());
+        assertEquals(token, decoded);
+        assertEquals(new ORecordId(12, 34), decoded.getId());
+
+        token = new ContinuationToken(new Date(1603261587236L), null);
+        decoded = ContinuationToken.decode(token.encode());
+        assertEquals(token, decoded);
+        assertNull(decoded.getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeInvalid() {
+        ContinuationToken.decode("not a token");
+    }
+}
@@ -0,0 +1,86 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.*;
+
+import ir.sahab.nexus.plugin.tag.internal.AttributePredicate.Operator;
+import ir.sahab.nexus.plugin.tag.internal.FilterExpression.AttributeTerm;
+import ir.sahab.nexus.plugin.tag.internal.FilterExpression.ComponentTerm;
+import ir.sahab.nexus.plugin.tag.internal.FilterExpression.Not;
+import ir.sahab.nexus.plugin.tag.internal.FilterExpression.Or;
+import java.util.Collections;
+import org.junit.Test;
+
+public class FilterExpressionTest {
+
+    @Test
+    public void testParse() {
+        FilterExpression filter = FilterExpression.parse(
+                "(status:successful OR status:\"in progress\") and not component(r1:g1:n1 > 1) and has(promoted)");
+        assertEquals(3, filter.conjuncts().size());
+
+        Or or = (Or) filter.conjuncts().get(0);
+        AttributePredicate predicate = ((AttributeTerm) or.getOperands().get(1)).getPredicate();
+        assertEquals("status", predicate.getKey());
+        assertEquals("in progress", predicate.getValue());
+
+        Not not = (Not) filter.conjuncts().get(1);
+        assertEquals("r1:g1:n1 > 1", ((ComponentTerm) not.getOperand()).getCriterion().toString());
+
+        predicate = ((AttributeTerm) filter.conjuncts().get(2)).getPredicate();
+        assertEquals(Operator.EXISTS, predicate.getOperator());
+        assertEquals("promoted", predicate.getKey());
+
+        // And has higher precedence than or
+        filter = FilterExpression.parse("a:1 or b:2 and not match(c:3*)");
+        assertEquals(2, ((Or) filter).getOperands().size());
+
+        // Values of plain terms are matched exactly, even if they look like other predicates
+        for (String value : new String[] {">abc", "<1", "a*"}) {
+            predicate = ((AttributeTerm) FilterExpression.parse("k:" + value)).getPredicate();
+            assertEquals(AttributePredicate.equalTo("k", value), predicate);
+        }
+        predicate = ((AttributeTerm) FilterExpression.parse("match( k: >=1.2 )")).getPredicate();
+        assertEquals(Operator.GTE, predicate.getOperator());
+        assertEquals("1.2", predicate.getValue());
+    }
+
+    @Test
+    public void testToString() {
+        String expression = "(status:successful or status:\"in progress\") and not component(r1:g1:n1 > 1) "
+                + "and has(promoted)";
+        assertEquals(expression, FilterExpression.parse(expression).toString());
+        assertEquals("a:1 or match(b:>=2) and not (match(c:3*) or d:4*)",
+                FilterExpression.parse("  a:1  or (match(b:>=2) and not(match(c:3*) or d:4*))").toString());
+        assertEquals(FilterExpression.parse("a:1 and b:2"), FilterExpression.parse("(a:1) AND b:2"));
+    }
+
+    @Test
+    public void testParseInvalid() {
+        for (String expression : new String[] {"", "a", "a:1 or", "(a:1", "a:1)", "component(r1:n1)", "a:\"1",
+                "not", "match(a:>x)", "match(a)"}) {
+            try {
+                FilterExpression.parse(expression);
+                fail("Expression should be invalid: " + expression);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testQueryWithFilter() {
+        TagQuery query = new TagQuery(Collections.singletonMap("a", "1"), Collections.emptyList())
+                .withFilter(FilterExpression.parse(
+                        "a:1 and b:2 and match(c:>3) and component(r1::n1) and (d:4 or e:5)"));
+        assertEquals(2, query.getAttributes().size());
+        assertEquals("2", query.getAttributes().get("b"));
+        assertEquals(Collections.singletonList(AttributePredicate.parse("c", ">3")), query.getAttributePredicates());
+        assertEquals(1, query.getComponentCriteria().size());
+        assertEquals(FilterExpression.parse("d:4 or e:5"), query.getFilter());
+
+        // Conflicting values of the same attribute are kept in filter
+        query = query.withFilter(FilterExpression.parse("a:2"));
+        assertEquals("1", query.getAttributes().get("a"));
+        assertEquals(FilterExpression.parse("(d:4 or e:5) and a:2"), query.getFilter());
+    }
+}
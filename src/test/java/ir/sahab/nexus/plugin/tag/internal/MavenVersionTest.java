@@ -0,0 +1,61 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.junit.Test;
+
+public class MavenVersionTest {
+
+    private static final String[] NUMBERS = {"0", "1", "01", "1.0", "1.0.0", "1.1", "1.10", "2", "1.0.1", "20201231"};
+    private static final String[] QUALIFIERS = {"alpha", "a", "beta", "b", "milestone", "m", "rc", "RC", "cr",
+        "SNAPSHOT", "ga", "Final", "release", "sp", "jre", "foo"};
+    private static final String[] SEPARATORS = {"-", ".", ""};
+    private static final String[] SUFFIXES = {"", "1", "-1", ".1", "10", "-0", ".0", "-SNAPSHOT", "-sp", "-beta-2"};
+
+    /** Versions which Maven compares inconsistently, as documented in {@link MavenVersion#toKey(String)}. */
+    private static final Pattern NON_TRANSITIVE =
+            Pattern.compile(".*\\.[a-z]+[-.].*|.*[-\\d](ga|final|release)-.*|.*-0+-.*");
+
+    @Test
+    public void testSameOrderAsMaven() {
+        List<String> versions = new ArrayList<>();
+        for (String number : NUMBERS) {
+            versions.add(number);
+            for (String suffix : SUFFIXES) {
+                versions.add(number + suffix);
+            }
+            for (String qualifier : QUALIFIERS) {
+                for (String separator : SEPARATORS) {
+                    for (String suffix : SUFFIXES) {
+                        versions.add(number + separator + qualifier + suffix);
+                    }
+                }
+            }
+        }
+        versions.removeIf(version -> NON_TRANSITIVE.matcher(version.toLowerCase(Locale.ENGLISH)).matches());
+
+        List<String> keys = new ArrayList<>(versions.size());
+        List<ComparableVersion> expected = new ArrayList<>(versions.size());
+        for (String version : versions) {
+            String key = MavenVersion.toKey(version);
+            assertNotNull(version, key);
+            keys.add(key);
+            expected.add(new ComparableVersion(version));
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            for (int j = 0; j < versions.size(); j++) {
+                int order = Integer.signum(expected.get(i).compareTo(expected.get(j)));
+                if (order != Integer.signum(keys.get(i).compareTo(keys.get(j)))) {
+                    assertEquals(versions.get(i) + " vs " + versions.get(j), order,
+                            Integer.signum(keys.get(i).compareTo(keys.get(j))));
+                }
+            }
+        }
+    }
+}
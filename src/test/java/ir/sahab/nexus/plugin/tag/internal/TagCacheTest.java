@@ -0,0 +1,55 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.codahale.metrics.MetricRegistry;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TagCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Tag load(String name) {
+        loads.incrementAndGet();
+        return new Tag(name, Collections.singletonMap("attr", "val"), Collections.emptyList(), new Date(), new Date());
+    }
+
+    @Test
+    public void testHitAndInvalidation() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        TagCache cache = new TagCache(10, 60, metricRegistry);
+        Tag tag = cache.get("tag1", this::load);
+        assertSame(tag, cache.get("tag1", this::load));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+        assertEquals(1L, metricRegistry.getGauges().get(MetricRegistry.name(TagCache.class, "hits")).getValue());
+
+        cache.invalidateAll(Collections.singletonList("tag1"));
+        cache.get("tag1", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testInvalidationDuringLoad() {
+        TagCache cache = new TagCache(10, 60, new MetricRegistry());
+        cache.get("tag1", name -> {
+            // Tag is changed while its old version is being loaded
+            cache.invalidateAll(Collections.singletonList(name));
+            return load(name);
+        });
+        cache.get("tag1", this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCachedTagIsUnmodifiable() {
+        TagCache cache = new TagCache(10, 60, new MetricRegistry());
+        cache.get("tag1", this::load).getAttributes().put("attr", "changed");
+    }
+}
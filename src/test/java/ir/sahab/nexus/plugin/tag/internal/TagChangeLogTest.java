@@ -0,0 +1,115 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
+import com.orientechnologies.orient.core.metadata.schema.OType;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+public class TagChangeLogTest {
+
+    @Test
+    public void testAwaitCommit() throws Exception {
+        TagChangeLog changeLog = new TagChangeLog(30, 60);
+        long observed = changeLog.commits();
+        changeLog.committed();
+        // A commit after observation is not missed, even if it's notified before waiting
+        long start = System.nanoTime();
+        changeLog.awaitCommit(observed, TimeUnit.SECONDS.toMillis(10));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+
+        long observedAgain = changeLog.commits();
+        assertEquals(observed + 1, observedAgain);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                changeLog.awaitCommit(observedAgain, TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        changeLog.committed();
+        waiter.get(5, TimeUnit.SECONDS);
+
+        start = System.nanoTime();
+        changeLog.awaitCommit(changeLog.commits(), 100);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        ODatabaseDocumentTx db = new ODatabaseDocumentTx("memory:" + getClass().getSimpleName()).create();
+        try {
+            TagChangeLog changeLog = new TagChangeLog(30, 60);
+            changeLog.register(db);
+            int writers = 8;
+            int commitsPerWriter = 50;
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int writer = 0; writer < writers; writer++) {
+                int writerIndex = writer;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try (ODatabaseDocumentTx tx = new ODatabaseDocumentTx(db.getURL()).open("admin", "admin")) {
+                        for (int i = 0; i < commitsPerWriter; i++) {
+                            tx.begin();
+                            // Writers never conflict, so commits do not fail and need no retry
+                            changeLog.commit(tx, Collections.singletonMap("tag-" + writerIndex + '-' + i,
+                                    Type.CREATED));
+                        }
+                    }
+                }));
+            }
+            for (CompletableFuture<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            List<TagChange> changes = changeLog.read(db, 0, writers * commitsPerWriter + 1);
+            assertEquals(writers * commitsPerWriter, changes.size());
+            for (int i = 0; i < changes.size(); i++) {
+                assertEquals(i + 1, changes.get(i).getSequence());
+            }
+            Set<String> names = changes.stream().map(TagChange::getName).collect(Collectors.toSet());
+            assertEquals(writers * commitsPerWriter, names.size());
+
+            // A failed commit leaves no gap between sequence numbers
+            db.getMetadata().getSchema().createClass("unique_value").createProperty("value", OType.STRING)
+                    .createIndex(INDEX_TYPE.UNIQUE);
+            new ODocument("unique_value").field("value", "v").save();
+            db.begin();
+            new ODocument("unique_value").field("value", "v").save();
+            try {
+                changeLog.commit(db, Collections.singletonMap("failed", Type.CREATED));
+                fail("Commit should fail due to duplicate value");
+            } catch (ORecordDuplicatedException e) {
+                // Expected
+            }
+            db.begin();
+            changeLog.commit(db, Collections.singletonMap("committed", Type.UPDATED));
+            List<TagChange> last = changeLog.read(db, writers * commitsPerWriter, 10);
+            assertEquals(1, last.size());
+            assertEquals(writers * commitsPerWriter + 1, last.get(0).getSequence());
+            assertEquals("committed", last.get(0).getName());
+
+            // Sequence numbers continue after restart
+            TagChangeLog restarted = new TagChangeLog(30, 60);
+            restarted.register(db);
+            db.begin();
+            restarted.commit(db, Collections.singletonMap("restarted", Type.DELETED));
+            assertEquals(Long.valueOf(writers * commitsPerWriter + 2), restarted.lastSequence(db));
+        } finally {
+            db.drop();
+        }
+    }
+}
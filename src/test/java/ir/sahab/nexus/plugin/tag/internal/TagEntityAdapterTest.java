@@ -0,0 +1,82 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TagEntityAdapterTest {
+
+    private ODatabaseDocumentTx db;
+    private TagEntityAdapter adapter;
+
+    @Before
+    public void setUp() {
+        db = new ODatabaseDocumentTx("memory:" + getClass().getSimpleName()).create();
+        adapter = new TagEntityAdapter(new VersionSchemes(repository -> null, ""));
+        adapter.register(db);
+        adapter.upgrade(db);
+    }
+
+    @After
+    public void tearDown() {
+        db.drop();
+    }
+
+    @Test
+    public void testCountByAttribute() {
+        addTag("t1", "status", "successful");
+        addTag("t2", "status", "failed");
+        addTag("t3", "status", "successful");
+        addTag("t4", "project", "p1");
+        addTag("t5", "project", "p2");
+        addTag("t6", "it's", "quoted");
+        addTag("t7", "say \"hi\"", "double quoted");
+
+        assertEquals(7, adapter.count(db, TagQuery.all(), null));
+
+        // Tags without the attribute are not counted, rather than grouped under a null value
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("successful", 2L);
+        expected.put("failed", 1L);
+        Map<String, Long> groups = adapter.count(db, TagQuery.all(), null, "status");
+        assertEquals(expected, groups);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(groups.keySet()));
+
+        assertEquals(Collections.singletonMap("p1", 1L),
+                adapter.count(db, new TagQuery(Collections.singletonMap("project", "p1"), Collections.emptyList()),
+                        null, "project"));
+        assertEquals(Collections.singletonMap("quoted", 1L), adapter.count(db, TagQuery.all(), null, "it's"));
+        assertEquals(Collections.singletonMap("double quoted", 1L),
+                adapter.count(db, TagQuery.all(), null, "say \"hi\""));
+        assertTrue(adapter.count(db, TagQuery.all(), null, "missing").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCountByUnquotableAttribute() {
+        adapter.count(db, TagQuery.all(), null, "it's \"both\"");
+    }
+
+    private void addTag(String name, String key, String value) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put(key, value);
+        TagEntity tag = adapter.newEntity();
+        tag.setName(name);
+        tag.setAttributes(attributes);
+        tag.setComponents(new ArrayList<>());
+        tag.setFirstCreated(new Date());
+        tag.setLastUpdated(new Date());
+        db.begin();
+        adapter.addEntity(db, tag);
+        db.commit();
+    }
+}
@@ -0,0 +1,65 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import com.codahale.metrics.MetricRegistry;
+import ir.sahab.nexus.plugin.tag.internal.exception.TagConflictException;
+import ir.sahab.nexus.plugin.tag.internal.exception.TagNotFoundException;
+import org.junit.Test;
+
+public class TagMetricsTest {
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final TagMetrics metrics = new TagMetrics(metricRegistry);
+
+    @Test
+    public void testFailures() {
+        assertEquals("result", metrics.time("addOrUpdate", () -> "result"));
+        try {
+            metrics.time("addOrUpdate", () -> {
+                throw new IllegalStateException();
+            });
+            fail("Exception expected");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+        try {
+            metrics.time("getByName", () -> {
+                throw new TagNotFoundException();
+            });
+            fail("Exception expected");
+        } catch (TagNotFoundException e) {
+            // Expected
+        }
+
+        assertEquals(2, metricRegistry.timer(MetricRegistry.name(TagStore.class, "addOrUpdate")).getCount());
+        assertEquals(1, metricRegistry.counter(MetricRegistry.name(TagStore.class, "addOrUpdate", "failures"))
+                .getCount());
+        assertEquals(1, metricRegistry.timer(MetricRegistry.name(TagStore.class, "getByName")).getCount());
+        // Missing tags are not failures of the store
+        assertFalse(metricRegistry.getCounters().containsKey(MetricRegistry.name(TagStore.class, "getByName",
+                "failures")));
+    }
+
+    @Test
+    public void testConflicts() {
+        try {
+            metrics.time("patch", () -> {
+                metrics.retried("patch");
+                metrics.retried("patch");
+                metrics.conflicted("patch");
+                throw new TagConflictException();
+            });
+            fail("Exception expected");
+        } catch (TagConflictException e) {
+            // Expected
+        }
+        assertEquals(2, metricRegistry.counter(MetricRegistry.name(TagStore.class, "patch", "retries")).getCount());
+        assertEquals(1, metricRegistry.counter(MetricRegistry.name(TagStore.class, "patch", "conflicts")).getCount());
+        // Conflicts are reported to clients, so they are not failures of the store
+        assertFalse(metricRegistry.getCounters().containsKey(MetricRegistry.name(TagStore.class, "patch",
+                "failures")));
+    }
+}
@@ -0,0 +1,93 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import ir.sahab.nexus.plugin.tag.internal.dto.Tag;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class TagSearchCacheTest {
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    private List<Tag> search() {
+        searches.incrementAndGet();
+        return Collections.singletonList(
+                new Tag("tag1", Collections.emptyMap(), Collections.emptyList(), new Date(), new Date()));
+    }
+
+    @Test
+    public void testNormalizedKey() {
+        TagSearchCache cache = new TagSearchCache(100, 60, new MetricRegistry());
+        ComponentSearchCriterion criterion1 = ComponentSearchCriterion.parse("r1:g1:n1 > 1");
+        ComponentSearchCriterion criterion2 = ComponentSearchCriterion.parse("r2::n2");
+        cache.search(new TagQuery(ImmutableMap.of("a", "1", "b", "2"), Arrays.asList(criterion1, criterion2)),
+                TagField.ALL, this::search);
+        cache.search(new TagQuery(ImmutableMap.of("b", "2", "a", "1"), Arrays.asList(
+                ComponentSearchCriterion.parse("r2::n2"), ComponentSearchCriterion.parse("r1:g1:n1 > 1"))),
+                TagField.ALL, this::search);
+        assertEquals(1, searches.get());
+
+        cache.search(new TagQuery(ImmutableMap.of("a", "1"), Arrays.asList(criterion1, criterion2)), TagField.ALL,
+                this::search);
+        assertEquals(2, searches.get());
+        cache.searchFirstPage(TagQuery.all(), TagField.ALL, 10, () -> new ResultPage<>(search(), null));
+        cache.searchFirstPage(TagQuery.all(), TagField.ALL, 20, () -> new ResultPage<>(search(), null));
+        assertEquals(4, searches.get());
+        cache.searchFirstPage(TagQuery.all(), TagField.ALL, 10, () -> new ResultPage<>(search(), null));
+        assertEquals(4, searches.get());
+
+        // Projections of the same search are cached separately
+        Set<TagField> names = EnumSet.of(TagField.NAME);
+        cache.searchFirstPage(TagQuery.all(), names, 10, () -> new ResultPage<>(search(), null));
+        cache.searchFirstPage(TagQuery.all(), EnumSet.of(TagField.NAME), 10, () -> new ResultPage<>(search(), null));
+        assertEquals(5, searches.get());
+
+        // Time criteria are part of the key
+        Date updatedAfter = new Date(1000);
+        List<AttributePredicate> noPredicates = Collections.emptyList();
+        cache.search(new TagQuery(Collections.emptyMap(), noPredicates, Collections.emptyList(), updatedAfter, null,
+                null), TagField.ALL, this::search);
+        cache.search(new TagQuery(Collections.emptyMap(), noPredicates, Collections.emptyList(), new Date(1000), null,
+                null), TagField.ALL, this::search);
+        cache.search(new TagQuery(Collections.emptyMap(), noPredicates, Collections.emptyList(), null, updatedAfter,
+                null), TagField.ALL, this::search);
+        assertEquals(7, searches.get());
+
+        // Order of attribute predicates does not matter
+        List<AttributePredicate> predicates =
+                Arrays.asList(AttributePredicate.parse("build", ">=12"), AttributePredicate.exists("promoted"));
+        cache.search(new TagQuery(Collections.emptyMap(), predicates, Collections.emptyList(), null, null, null),
+                TagField.ALL, this::search);
+        predicates = Arrays.asList(AttributePredicate.exists("promoted"), AttributePredicate.parse("build", ">=12"));
+        cache.search(new TagQuery(Collections.emptyMap(), predicates, Collections.emptyList(), null, null, null),
+                TagField.ALL, this::search);
+        assertEquals(8, searches.get());
+    }
+
+    @Test
+    public void testInvalidation() {
+        TagSearchCache cache = new TagSearchCache(100, 60, new MetricRegistry());
+        cache.search(TagQuery.all(), TagField.ALL, this::search);
+        cache.invalidate();
+        cache.search(TagQuery.all(), TagField.ALL, this::search);
+        assertEquals(2, searches.get());
+
+        // Tags are changed during the search, so its result should not be cached
+        TagQuery query = new TagQuery(Collections.singletonMap("a", "1"), Collections.emptyList());
+        cache.search(query, TagField.ALL, () -> {
+            cache.invalidate();
+            return search();
+        });
+        cache.search(query, TagField.ALL, this::search);
+        assertEquals(4, searches.get());
+    }
+}
@@ -0,0 +1,148 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagChange;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagDefinition;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult;
+import ir.sahab.nexus.plugin.tag.internal.dto.TagUpsertResult.Outcome;
+import ir.sahab.nexus.plugin.tag.internal.exception.TagVersionMismatchException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.hamcrest.BaseMatcher;
+import org.hamcrest.Description;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonatype.nexus.orient.DatabaseInstance;
+
+public class TagStoreTest {
+
+    private ODatabaseDocumentTx db;
+    private TagEntityAdapter entityAdapter;
+    private TagComponentIndex componentIndex;
+    private TagChangeLog changeLog;
+    private TagStore tagStore;
+
+    @Before
+    public void setUp() {
+        db = new ODatabaseDocumentTx("memory:" + getClass().getSimpleName()).create();
+        DatabaseInstance databaseInstance = mock(DatabaseInstance.class);
+        when(databaseInstance.acquire()).thenAnswer(invocation -> new ODatabaseDocumentTx(db.getURL())
+                .open("admin", "admin"));
+
+        MetricRegistry metricRegistry = new MetricRegistry();
+        TagMetrics metrics = new TagMetrics(metricRegistry);
+        VersionSchemes versionSchemes = new VersionSchemes(repository -> null, "");
+        entityAdapter = new TagEntityAdapter(versionSchemes);
+        componentIndex = spy(new TagComponentIndex(metrics, versionSchemes));
+        changeLog = new TagChangeLog(30, 60);
+        entityAdapter.register(db);
+        entityAdapter.upgrade(db);
+        componentIndex.register(db);
+        changeLog.register(db);
+        tagStore = new TagStore(() -> databaseInstance, null, entityAdapter, componentIndex, changeLog,
+                new TagCache(100, 60, metricRegistry), new TagSearchCache(100, 60, metricRegistry), metrics, 2, 0);
+    }
+
+    @After
+    public void tearDown() {
+        db.activateOnCurrentThread();
+        db.drop();
+    }
+
+    @Test
+    public void testFailedChunkIsRolledBack() {
+        // Second tag of the first chunk fails after the first one is written in the same transaction
+        doThrow(new IllegalStateException("Failed to index components")).when(componentIndex)
+                .add(any(ODatabaseDocumentTx.class), argThat(new BaseMatcher<ODocument>() {
+                    @Override
+                    public boolean matches(Object item) {
+                        return "t2".equals(((ODocument) item).field("name"));
+                    }
+
+                    @Override
+                    public void describeTo(Description description) {
+                        description.appendText("document of t2");
+                    }
+                }));
+
+        List<TagDefinition> definitions = new ArrayList<>();
+        for (String name : Arrays.asList("t1", "t2", "t3")) {
+            definitions.add(new TagDefinition(name, Collections.singletonMap("k", "v"), new ArrayList<>()));
+        }
+        List<TagUpsertResult> results = tagStore.addOrUpdateAll(definitions);
+        assertEquals(Outcome.FAILED, results.get(0).getOutcome());
+        assertEquals(Outcome.FAILED, results.get(1).getOutcome());
+        assertEquals(Outcome.CREATED, results.get(2).getOutcome());
+
+        // None of the tags of the failed chunk are written, nor their changes
+        try (ODatabaseDocumentTx tx = new ODatabaseDocumentTx(db.getURL()).open("admin", "admin")) {
+            assertFalse(entityAdapter.findByName(tx, "t1").isPresent());
+            assertFalse(entityAdapter.findByName(tx, "t2").isPresent());
+            assertTrue(entityAdapter.findByName(tx, "t3").isPresent());
+            List<String> changed =
+                    changeLog.read(tx, 0, 10).stream().map(TagChange::getName).collect(Collectors.toList());
+            assertEquals(Collections.singletonList("t3"), changed);
+        }
+    }
+
+    @Test
+    public void testAnyVersion() {
+        TagDefinition definition = new TagDefinition("t1", Collections.singletonMap("k", "v"), new ArrayList<>());
+        tagStore.addOrUpdate(definition, null);
+        definition.setAttributes(Collections.singletonMap("k", "v2"));
+        assertEquals("v2", tagStore.addOrUpdate(definition, TagStore.ANY_VERSION).getAttributes().get("k"));
+        tagStore.delete("t1", TagStore.ANY_VERSION);
+
+        // A missing tag does not match any version
+        try {
+            tagStore.addOrUpdate(definition, TagStore.ANY_VERSION);
+            fail("Missing tag should not be updated");
+        } catch (TagVersionMismatchException e) {
+            // Expected
+        }
+        try {
+            tagStore.delete("t1", TagStore.ANY_VERSION);
+            fail("Missing tag should not match");
+        } catch (TagVersionMismatchException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testPruneChangeLog() {
+        tagStore.addOrUpdate(new TagDefinition("t1", Collections.singletonMap("k", "v"), new ArrayList<>()), null);
+        tagStore.addOrUpdate(new TagDefinition("t2", Collections.singletonMap("k", "v"), new ArrayList<>()), null);
+        try (ODatabaseDocumentTx tx = new ODatabaseDocumentTx(db.getURL()).open("admin", "admin")) {
+            Date expired = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31));
+            tx.command(new OCommandSQL("update " + TagChangeLog.DB_CLASS + " set timestamp = ?")).execute(expired);
+        }
+
+        // Expired changes are removed, except the last one which keeps sequence numbers from being reused
+        tagStore.pruneChangeLog();
+        try (ODatabaseDocumentTx tx = new ODatabaseDocumentTx(db.getURL()).open("admin", "admin")) {
+            List<String> changed =
+                    changeLog.read(tx, 0, 10).stream().map(TagChange::getName).collect(Collectors.toList());
+            assertEquals(Collections.singletonList("t2"), changed);
+        }
+    }
+}
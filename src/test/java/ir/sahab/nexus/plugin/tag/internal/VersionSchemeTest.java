@@ -0,0 +1,88 @@
+package ir.sahab.nexus.plugin.tag.internal;
+
+import static org.junit.Assert.*;
+
+import ir.sahab.nexus.plugin.tag.internal.ComponentSearchCriterion.Operator;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+
+public class VersionSchemeTest {
+
+    @Test
+    public void testMavenOrder() {
+        assertOrdered(VersionScheme.MAVEN, "1.0-alpha-1", "1.0-alpha-2", "1.0-beta", "1.0-milestone-1", "1.0-rc1",
+                "1.0-SNAPSHOT", "1.0", "1.0-sp", "1.0-jre", "1.0.1-SNAPSHOT", "1.0.1", "1.1", "1.9", "1.10", "2.0-a1");
+
+        String key = VersionScheme.MAVEN.toKey("1");
+        for (String version : new String[] {"1.0", "1.0.0", "1-ga", "1.0.0.Final", "1-RELEASE", "1.0-0"}) {
+            assertEquals(version, key, VersionScheme.MAVEN.toKey(version));
+        }
+        assertEquals(VersionScheme.MAVEN.toKey("1.0-rc1"), VersionScheme.MAVEN.toKey("1.0.0.CR1"));
+        assertEquals(VersionScheme.MAVEN.toKey("1.0-alpha1"), VersionScheme.MAVEN.toKey("1.0-a1"));
+        assertNull(VersionScheme.MAVEN.toKey(""));
+    }
+
+    @Test
+    public void testSemanticVersionOrder() {
+        assertOrdered(VersionScheme.SEMVER, "1.0.0-alpha", "1.0.0-alpha.1", "1.0.0-alpha.beta", "1.0.0-beta",
+                "1.0.0-beta.2", "1.0.0-beta.11", "1.0.0-rc.1", "1.0.0", "1.0.1", "1.10.0", "2.0.0-0", "2.0.0");
+
+        assertEquals(VersionScheme.SEMVER.toKey("1.0.0"), VersionScheme.SEMVER.toKey("1.0.0+build.1"));
+        for (String version : new String[] {"1", "1.0", "1.0.0.0", "01.0.0", "1.0.0-", "1.0.0-01", "1.0.0-a..b",
+                "1.0.0+", "v1.0.0"}) {
+            assertNull(version, VersionScheme.SEMVER.toKey(version));
+        }
+    }
+
+    @Test
+    public void testToKeys() {
+        Map<String, String> keys = VersionScheme.toKeys("1.2.3");
+        assertEquals(3, keys.size());
+        assertEquals(VersionScheme.NUMERIC.toKey("1.2.3"), keys.get(VersionScheme.NUMERIC.getKeyName()));
+
+        keys = VersionScheme.toKeys("1.0-SNAPSHOT");
+        assertEquals(Collections.singleton(VersionScheme.MAVEN.getKeyName()), keys.keySet());
+    }
+
+    @Test
+    public void testVersionSchemes() {
+        VersionSchemes schemes = new VersionSchemes(
+                repository -> repository.equals("unknown") ? null : repository.replace("-hosted", ""),
+                "maven2=maven, npm = semver");
+        assertEquals(VersionScheme.MAVEN, schemes.forRepository("maven2-hosted"));
+        assertEquals(VersionScheme.SEMVER, schemes.forRepository("npm-hosted"));
+        assertEquals(VersionScheme.NUMERIC, schemes.forRepository("raw-hosted"));
+        assertEquals(VersionScheme.NUMERIC, schemes.forRepository("unknown"));
+
+        try {
+            new VersionSchemes(repository -> null, "maven2=ivy");
+            fail("Unknown scheme should be rejected");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testCriterionMatches() {
+        ComponentSearchCriterion criterion = ComponentSearchCriterion.parse("r1:g1:n1 >= 1.0-rc1");
+        AssociatedComponent snapshot = new AssociatedComponent("r1", "g1", "n1", "1.0-SNAPSHOT");
+        assertTrue(criterion.matches(snapshot, VersionScheme.MAVEN));
+        assertFalse(criterion.matches(new AssociatedComponent("r1", "g1", "n1", "1.0-beta"), VersionScheme.MAVEN));
+        // Not supported by numeric scheme
+        assertFalse(criterion.matches(snapshot));
+        assertNull(criterion.getVersionKey(VersionScheme.NUMERIC));
+        assertNotNull(criterion.getVersionKey(VersionScheme.MAVEN));
+
+        assertTrue(new ComponentSearchCriterion.Version("1.0.0-rc.1").compare(Operator.LT,
+                new ComponentSearchCriterion.Version("1.0.0"), VersionScheme.SEMVER));
+    }
+
+    private static void assertOrdered(VersionScheme scheme, String... versions) {
+        for (int i = 1; i < versions.length; i++) {
+            String message = versions[i - 1] + " < " + versions[i];
+            assertTrue(message, scheme.toKey(versions[i - 1]).compareTo(scheme.toKey(versions[i])) < 0);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package ir.sahab.nexus.plugin.tag.internal.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import ir.sahab.nexus.plugin.tag.internal.dto.AssociatedComponent;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.storage.Query;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+
+public class ComponentExistenceCheckerTest {
+
+    @Test
+    public void testCachedMissingRepository() {
+        RepositoryManager repositoryManager = mock(RepositoryManager.class);
+        ComponentExistenceChecker checker =
+                new ComponentExistenceChecker(repositoryManager, 100, 60, new MetricRegistry());
+        AssociatedComponent component1 = new AssociatedComponent("repo1", "g1", "n1", "1");
+        AssociatedComponent component2 = new AssociatedComponent("repo1", null, "n2", "2");
+        List<AssociatedComponent> components = Arrays.asList(component1, component2);
+
+        assertEquals(components, checker.findMissing(components));
+        assertEquals(components, checker.findMissing(components));
+        // Both components are checked by a single lookup, and then served from cache
+        verify(repositoryManager, times(1)).get("repo1");
+
+        Repository repository = mock(Repository.class);
+        when(repository.getName()).thenReturn("repo1");
+        checker.on(new RepositoryDeletedEvent(repository));
+        assertEquals(components, checker.findMissing(components));
+        verify(repositoryManager, times(2)).get("repo1");
+    }
+
+    @Test
+    public void testQueryFiltersVersions() {
+        StorageTx storageTx = mock(StorageTx.class);
+        when(storageTx.findComponents(any(Query.class), any())).thenReturn(Collections.emptyList());
+        StorageFacet storageFacet = mock(StorageFacet.class);
+        when(storageFacet.txSupplier()).thenReturn(() -> storageTx);
+        Repository repository = mock(Repository.class);
+        when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+        RepositoryManager repositoryManager = mock(RepositoryManager.class);
+        when(repositoryManager.get("repo1")).thenReturn(repository);
+        ComponentExistenceChecker checker =
+                new ComponentExistenceChecker(repositoryManager, 0, 0, new MetricRegistry());
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+
+        checker.findMissing(Arrays.asList(new AssociatedComponent("repo1", "g1", "n1", "1"),
+                new AssociatedComponent("repo1", "g1", "n1", "2")));
+        verify(storageTx).findComponents(query.capture(), any());
+        assertTrue(query.getValue().getWhere(), query.getValue().getWhere().contains("version IN"));
+        assertTrue(query.getValue().getParameters().containsValue(new HashSet<>(Arrays.asList("1", "2"))));
+
+        // Null versions are not matched by IN operator
+        checker.findMissing(Collections.singletonList(new AssociatedComponent("repo1", "g1", "n1", null)));
+        verify(storageTx, times(2)).findComponents(query.capture(), any());
+        assertFalse(query.getValue().getWhere(), query.getValue().getWhere().contains("version IN"));
+    }
+}